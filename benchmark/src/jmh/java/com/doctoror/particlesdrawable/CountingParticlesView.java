@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+
+/**
+ * {@link IParticlesView} that draws nothing and only counts submitted lines and dots, so that
+ * benchmarks measure the engine and not the rendering.
+ */
+final class CountingParticlesView implements IParticlesView {
+
+    int lines;
+    int dots;
+
+    @Override
+    public void drawLine(final float startX, final float startY, final float stopX,
+            final float stopY, final float strokeWidth, @ColorInt final int color) {
+        lines++;
+    }
+
+    @Override
+    public void fillCircle(final float cx, final float cy, final float radius,
+            @ColorInt final int color) {
+        dots++;
+    }
+
+    @Override
+    public void drawLines(@NonNull final float[] points, @NonNull final int[] colors,
+            final int count, final float strokeWidth) {
+        lines += count;
+    }
+
+    @Override
+    public void fillCircles(@NonNull final float[] centers, @NonNull final float[] radiuses,
+            final int count, @ColorInt final int color) {
+        dots += count;
+    }
+
+    @Override
+    public void setAntiAlias(final boolean antiAlias) {
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares connection line search strategies of {@link SceneController} on complete frames,
+ * including elongated scenes like toolbar backgrounds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PairFinderBenchmark {
+
+    /**
+     * Neighbor list skin in pixels used by the neighbor list strategies
+     */
+    private static final float NEIGHBOR_LIST_SKIN = 16f;
+
+    @Param({"grid", "neighborList", "sweepAndPrune", "sweepAndPruneNeighborList"})
+    public String strategy;
+
+    @Param({"500", "2000", "20000"})
+    public int numDots;
+
+    /**
+     * Scene size in pixels, as width x height
+     */
+    @Param({"1080x1920", "2560x160"})
+    public String sceneSize;
+
+    private CountingParticlesView mView;
+    private SceneController mController;
+
+    @Setup
+    public void setUp() {
+        final int separator = sceneSize.indexOf('x');
+        final int width = Integer.parseInt(sceneSize.substring(0, separator));
+        final int height = Integer.parseInt(sceneSize.substring(separator + 1));
+
+        mView = new CountingParticlesView();
+        mController = new SceneController(mView, new NoOpSceneScheduler(), new FrameClock(), 1f);
+        mController.setNumDots(numDots);
+        mController.setBounds(0, 0, width, height);
+        if ("grid".equals(strategy)) {
+            mController.setPairFinder(PairFinder.GRID);
+        } else if ("neighborList".equals(strategy)) {
+            mController.setPairFinder(PairFinder.GRID);
+            mController.setNeighborListSkin(NEIGHBOR_LIST_SKIN);
+        } else if ("sweepAndPrune".equals(strategy)) {
+            mController.setPairFinder(PairFinder.SWEEP_AND_PRUNE);
+        } else if ("sweepAndPruneNeighborList".equals(strategy)) {
+            mController.setPairFinder(PairFinder.SWEEP_AND_PRUNE);
+            mController.setNeighborListSkin(NEIGHBOR_LIST_SKIN);
+        } else {
+            throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+
+        // Settle the first frame so that the initial step is not measured
+        mController.nextFrame();
+        mController.draw();
+    }
+
+    @Benchmark
+    public void nextFrameAndDraw(final Blackhole blackhole) {
+        mController.nextFrame();
+        mController.draw();
+        blackhole.consume(mView.lines);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SceneController} simulation and line and dot passes against a
+ * {@link CountingParticlesView}, over a matrix of dot counts, line distances, scene sizes and
+ * parallelism.
+ *
+ * Run with {@code ./gradlew :benchmark:jmh}. The gc profiler reports allocation rate along
+ * with ops/s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SceneControllerBenchmark {
+
+    @Param({"60", "500", "2000", "20000"})
+    public int numDots;
+
+    /**
+     * Line distance in pixels
+     */
+    @Param({"43", "86", "172"})
+    public float lineDistance;
+
+    /**
+     * Scene size in pixels, as width x height
+     */
+    @Param({"480x800", "1080x1920", "2560x1600"})
+    public String sceneSize;
+
+    /**
+     * Number of threads stepping dots and finding lines
+     */
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private CountingParticlesView mView;
+    private SceneController mController;
+
+    @Setup
+    public void setUp() {
+        final int separator = sceneSize.indexOf('x');
+        final int width = Integer.parseInt(sceneSize.substring(0, separator));
+        final int height = Integer.parseInt(sceneSize.substring(separator + 1));
+
+        mView = new CountingParticlesView();
+        mController = new SceneController(mView, new NoOpSceneScheduler(), new FrameClock(), 1f);
+        mController.setNumDots(numDots);
+        mController.setLineDistance(lineDistance);
+        mController.setBounds(0, 0, width, height);
+        mController.setParallelism(parallelism);
+
+        // The worker pool only runs while the controller is running
+        mController.start();
+
+        // Settle the first frame so that the initial step is not measured
+        mController.nextFrame();
+        mController.draw();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mController.stop();
+    }
+
+    /**
+     * Simulation only: moves dots by one frame and respawns the ones that left the scene.
+     */
+    @Benchmark
+    public void nextFrame() {
+        mController.nextFrame();
+    }
+
+    /**
+     * Line and dot passes only, for a static scene.
+     */
+    @Benchmark
+    public void draw(final Blackhole blackhole) {
+        mController.draw();
+        consumeCounts(blackhole);
+    }
+
+    /**
+     * A complete frame: simulation followed by the line and dot passes.
+     */
+    @Benchmark
+    public void nextFrameAndDraw(final Blackhole blackhole) {
+        mController.nextFrame();
+        mController.draw();
+        consumeCounts(blackhole);
+    }
+
+    private void consumeCounts(final Blackhole blackhole) {
+        blackhole.consume(mView.lines);
+        blackhole.consume(mView.dots);
+    }
+}
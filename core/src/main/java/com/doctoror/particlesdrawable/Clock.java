@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+/**
+ * Source of frame times for {@link SceneController}.
+ */
+interface Clock {
+
+    /**
+     * Returns the current time in milliseconds in a monotonic time base. On Android it must be
+     * the time base of {@code SystemClock.uptimeMillis()} and {@code Choreographer} frame times.
+     *
+     * @return the current time in milliseconds
+     */
+    long uptimeMillis();
+}
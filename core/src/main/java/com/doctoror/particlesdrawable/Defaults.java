@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.ColorInt;
+
+/**
+ * Default values are here. Dimensions are in density-independent pixels.
+ */
+final class Defaults {
+
+    private Defaults() {
+        throw new UnsupportedOperationException();
+    }
+
+    static final int DEFAULT_DOT_NUMBER = 60;
+    static final float DEFAULT_MAX_DOT_RADIUS_DP = 3f;
+    static final float DEFAULT_MIN_DOT_RADIUS_DP = 1f;
+    static final float DEFAULT_LINE_THICKNESS_DP = 1f;
+    @ColorInt
+    static final int DEFAULT_DOT_COLOR = 0xFFFFFFFF;
+    @ColorInt
+    static final int DEFAULT_LINE_COLOR = 0xFFFFFFFF;
+    static final float DEFAULT_LINE_DISTANCE_DP = 86f;
+    static final float DEFAULT_STEP_MULTIPLIER = 1f;
+    static final int DEFAULT_DELAY = 10;
+    static final int DEFAULT_SIMULATION_RATE = 0;
+    static final boolean DEFAULT_BACKGROUND_SIMULATION_ENABLED = false;
+    static final int DEFAULT_PARALLELISM = 1;
+    static final float DEFAULT_NEIGHBOR_LIST_SKIN = 0f;
+    static final int DEFAULT_PAIR_FINDER = PairFinder.GRID;
+    static final boolean DEFAULT_ADAPTIVE_QUALITY_ENABLED = false;
+    static final int DEFAULT_TARGET_FRAME_BUDGET_MILLIS = 8;
+    static final int DEFAULT_LINE_ALPHA_BUCKETS = 0;
+    static final boolean DEFAULT_LINE_MESH_ENABLED = false;
+    static final boolean DEFAULT_DOT_RADIUS_QUANTIZATION_ENABLED = false;
+    static final boolean DEFAULT_DOT_SPRITES_ENABLED = false;
+    static final boolean DEFAULT_STATIC_FRAME_CACHING_ENABLED = false;
+}
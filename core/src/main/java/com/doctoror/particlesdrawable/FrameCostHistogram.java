@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.FloatRange;
+
+/**
+ * Histogram of frame costs over a rolling window of frames. Uses fixed arrays, so recording and
+ * querying never allocate.
+ */
+final class FrameCostHistogram {
+
+    static final int WINDOW_SIZE = 300;
+
+    static final long BUCKET_NANOS = 100000L;
+
+    static final long MAX_NANOS = 50000000L;
+
+    private static final int BUCKETS_COUNT = (int) (MAX_NANOS / BUCKET_NANOS) + 1;
+
+    private final int[] mBucketCounts = new int[BUCKETS_COUNT];
+
+    /**
+     * Bucket of each frame in the window, in order of recording
+     */
+    private final short[] mFrameBuckets = new short[WINDOW_SIZE];
+
+    private int mFramesCount;
+    private int mNextFrame;
+
+    void record(final long nanos) {
+        final int bucket = nanos <= 0L ? 0 : (int) ((Math.min(nanos, MAX_NANOS)
+                + BUCKET_NANOS - 1) / BUCKET_NANOS);
+        if (mFramesCount == WINDOW_SIZE) {
+            mBucketCounts[mFrameBuckets[mNextFrame]]--;
+        } else {
+            mFramesCount++;
+        }
+        mFrameBuckets[mNextFrame] = (short) bucket;
+        mBucketCounts[bucket]++;
+        mNextFrame = (mNextFrame + 1) % WINDOW_SIZE;
+    }
+
+    /**
+     * Returns the smallest recorded cost that is not exceeded by the specified fraction of
+     * frames in the window, rounded up to the bucket size.
+     *
+     * @param percentile the fraction of frames, from 0 to 1
+     * @return the percentile in nanoseconds, or 0 if nothing was recorded
+     */
+    long getPercentile(@FloatRange(from = 0, to = 1) final float percentile) {
+        if (percentile < 0f || percentile > 1f) {
+            throw new IllegalArgumentException("percentile must be in range [0, 1]");
+        }
+        if (mFramesCount == 0) {
+            return 0L;
+        }
+        final int rank = Math.max(1, (int) Math.ceil(percentile * mFramesCount));
+        int count = 0;
+        for (int bucket = 0; bucket < BUCKETS_COUNT; bucket++) {
+            count += mBucketCounts[bucket];
+            if (count >= rank) {
+                return bucket * BUCKET_NANOS;
+            }
+        }
+        return MAX_NANOS;
+    }
+
+    void clear() {
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            mBucketCounts[i] = 0;
+        }
+        mFramesCount = 0;
+        mNextFrame = 0;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.FloatRange;
+import android.support.annotation.Keep;
+
+/**
+ * Work done for a single frame, reported to {@link FrameStatsListener}.
+ *
+ * The frame cost is the time spent on the drawing thread: drawing plus simulation, unless the
+ * simulation runs on a background thread.
+ */
+@Keep
+public final class FrameStats {
+
+    private final FrameCostHistogram mHistogram;
+
+    long mSimulateDurationNanos;
+    long mDrawDurationNanos;
+    long mFrameCostNanos;
+
+    int mPairsTested;
+    int mLinesDrawn;
+    int mDotsDrawn;
+    int mRespawns;
+
+    FrameStats(final FrameCostHistogram histogram) {
+        mHistogram = histogram;
+    }
+
+    /**
+     * Returns the time spent advancing particles since the previous frame, on any thread.
+     *
+     * @return simulation time in nanoseconds
+     */
+    public long getSimulateDurationNanos() {
+        return mSimulateDurationNanos;
+    }
+
+    /**
+     * Returns the time spent drawing the frame.
+     *
+     * @return draw time in nanoseconds
+     */
+    public long getDrawDurationNanos() {
+        return mDrawDurationNanos;
+    }
+
+    /**
+     * Returns the time spent on the drawing thread for the frame.
+     *
+     * @return frame cost in nanoseconds
+     */
+    public long getFrameCostNanos() {
+        return mFrameCostNanos;
+    }
+
+    /**
+     * Returns the number of point pairs whose distance was calculated when looking for lines.
+     *
+     * @return the number of tested pairs
+     */
+    public int getPairsTested() {
+        return mPairsTested;
+    }
+
+    /**
+     * Returns the number of connection lines drawn.
+     *
+     * @return the number of lines
+     */
+    public int getLinesDrawn() {
+        return mLinesDrawn;
+    }
+
+    /**
+     * Returns the number of dots drawn.
+     *
+     * @return the number of dots
+     */
+    public int getDotsDrawn() {
+        return mDotsDrawn;
+    }
+
+    /**
+     * Returns the number of particles that left the scene and were replaced with new ones since
+     * the previous frame.
+     *
+     * @return the number of respawns
+     */
+    public int getRespawns() {
+        return mRespawns;
+    }
+
+    /**
+     * Returns the frame cost percentile over the last 300 frames, including this one. Costs are
+     * recorded with 0.1 ms precision, and costs above 50 ms are recorded as 50 ms.
+     *
+     * @param percentile the percentile, from 0 to 1
+     * @return the frame cost percentile in nanoseconds
+     */
+    public long getFrameCostPercentileNanos(
+            @FloatRange(from = 0, to = 1) final float percentile) {
+        return mHistogram.getPercentile(percentile);
+    }
+}
@@ -15,38 +15,20 @@
  */
 package com.doctoror.particlesdrawable;
 
+import android.support.annotation.Keep;
+import android.support.annotation.NonNull;
+
 /**
- * Represents a Particle by holding x and y coordinates, travel direction and step multiplier
+ * Receives {@link FrameStats} of every drawn frame.
  */
-final class Particle {
-
-    /**
-     * Direction cosine
-     */
-    float dCos;
-
-    /**
-     * Direction sine
-     */
-    float dSin;
-
-    /**
-     * Current X
-     */
-    float x;
-
-    /**
-     * Current Y
-     */
-    float y;
-
-    /**
-     * Step multiplier for this dot
-     */
-    float stepMultiplier;
+@Keep
+public interface FrameStatsListener {
 
     /**
-     * Radius multiplier for this dot
+     * Called on the drawing thread after each frame is drawn. The stats object is reused for
+     * every frame, so copy the values that have to outlive the call.
+     *
+     * @param stats the stats of the frame
      */
-    float radius;
+    void onFrameStats(@NonNull FrameStats stats);
 }
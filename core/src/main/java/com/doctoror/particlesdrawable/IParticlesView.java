@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+
+/**
+ * Particles View
+ */
+interface IParticlesView {
+
+    void drawLine(float startX, float startY, float stopX, float stopY, float strokeWidth,
+            @ColorInt int color);
+
+    void fillCircle(float cx, float cy, float radius, @ColorInt int color);
+
+    /**
+     * Draws a batch of lines of the same width.
+     *
+     * @param points      line coordinates, four values per line: startX, startY, stopX, stopY
+     * @param colors      line colors, one per line
+     * @param count       the number of lines to draw
+     * @param strokeWidth the line width
+     */
+    void drawLines(@NonNull float[] points, @NonNull int[] colors, int count, float strokeWidth);
+
+    /**
+     * Draws a batch of circles of the same color.
+     *
+     * @param centers  circle centers, two values per circle: cx, cy
+     * @param radiuses circle radiuses, one per circle
+     * @param count    the number of circles to draw
+     * @param color    the color of all circles
+     */
+    void fillCircles(@NonNull float[] centers, @NonNull float[] radiuses, int count,
+            @ColorInt int color);
+
+    /**
+     * Disables anti-aliasing of lines and dots, or restores the anti-aliasing they had before it
+     * was disabled.
+     *
+     * @param antiAlias false to disable anti-aliasing, true to restore it
+     */
+    void setAntiAlias(boolean antiAlias);
+}
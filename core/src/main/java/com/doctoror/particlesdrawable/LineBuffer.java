@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+
+/**
+ * Reusable buffer of lines in the format accepted by
+ * {@link IParticlesView#drawLines(float[], int[], int, float)}
+ */
+final class LineBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Line coordinates, four values per line: startX, startY, stopX, stopY
+     */
+    @NonNull
+    float[] points = new float[INITIAL_CAPACITY * 4];
+
+    /**
+     * Line colors, one per line
+     */
+    @NonNull
+    int[] colors = new int[INITIAL_CAPACITY];
+
+    private int mCount;
+
+    /**
+     * Returns the number of lines in this buffer
+     *
+     * @return the number of lines in this buffer
+     */
+    int count() {
+        return mCount;
+    }
+
+    void clear() {
+        mCount = 0;
+    }
+
+    void add(final float startX, final float startY, final float stopX, final float stopY,
+            @ColorInt final int color) {
+        ensureCapacity(mCount + 1);
+        final int offset = mCount * 4;
+        points[offset] = startX;
+        points[offset + 1] = startY;
+        points[offset + 2] = stopX;
+        points[offset + 3] = stopY;
+        colors[mCount] = color;
+        mCount++;
+    }
+
+    /**
+     * Appends all lines of the other buffer, in order.
+     *
+     * @param other the buffer to append lines of
+     */
+    void addAll(@NonNull final LineBuffer other) {
+        final int count = other.mCount;
+        ensureCapacity(mCount + count);
+        System.arraycopy(other.points, 0, points, mCount * 4, count * 4);
+        System.arraycopy(other.colors, 0, colors, mCount, count);
+        mCount += count;
+    }
+
+    /**
+     * Makes room for the number of lines, keeping the lines this buffer has.
+     *
+     * @param capacity the number of lines to make room for
+     */
+    void ensureCapacity(final int capacity) {
+        if (capacity > colors.length) {
+            final int newCapacity = Math.max(capacity, colors.length * 2);
+
+            final float[] newPoints = new float[newCapacity * 4];
+            System.arraycopy(points, 0, newPoints, 0, mCount * 4);
+            points = newPoints;
+
+            final int[] newColors = new int[newCapacity];
+            System.arraycopy(colors, 0, newColors, 0, mCount);
+            colors = newColors;
+        }
+    }
+}
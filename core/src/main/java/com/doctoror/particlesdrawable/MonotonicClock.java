@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+/**
+ * {@link Clock} backed by {@link System#nanoTime()}, which on Android shares the time base with
+ * {@code SystemClock.uptimeMillis()}.
+ */
+final class MonotonicClock implements Clock {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    @Override
+    public long uptimeMillis() {
+        return System.nanoTime() / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.VisibleForTesting;
+
+/**
+ * Verlet neighbor list: candidate pairs closer than the line distance plus a skin distance,
+ * reused across frames while points move less than half of the skin from where they were when
+ * the list was built. Pairs of such points cannot get closer than the line distance without
+ * being in the list, so only the candidates have to be tested.
+ *
+ * Points that moved farther, like respawned ones, are tested against all points until the next
+ * rebuild. The list is rebuilt with a {@link PairSearch} when testing them would cost more than
+ * rebuilding. No allocations are made once the arrays have grown to fit the scene.
+ */
+final class NeighborList {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    @NonNull
+    private PairSearch mSearch;
+
+    private final SpatialGrid.PairCallback mCollector = new SpatialGrid.PairCallback() {
+
+        @Override
+        public void onPair(final int index1, final int index2, final float distance) {
+            addCandidate(index1, index2);
+            if (distance < mLineDistance) {
+                mCallback.onPair(index1, index2, distance);
+            }
+        }
+    };
+
+    /**
+     * Candidate pairs, two point indices per pair
+     */
+    private int[] mCandidates = new int[INITIAL_CAPACITY * 2];
+    private int mCandidatesCount;
+
+    /**
+     * Point positions when the list was built
+     */
+    private float[] mBuildX = new float[0];
+    private float[] mBuildY = new float[0];
+
+    /**
+     * Points that moved farther than half of the skin since the list was built
+     */
+    private boolean[] mLoose = new boolean[0];
+
+    private int mPointsCount = -1;
+    private float mLineDistance;
+    private float mSkin;
+
+    private SpatialGrid.PairCallback mCallback;
+
+    private int mPairsTested;
+    private int mBuildsCount;
+
+    /**
+     * @param search the search to build the list with
+     */
+    NeighborList(@NonNull final PairSearch search) {
+        mSearch = search;
+    }
+
+    /**
+     * Sets the search to build the list with. The next call rebuilds the list.
+     *
+     * @param search the search to build the list with
+     */
+    void setPairSearch(@NonNull final PairSearch search) {
+        mSearch = search;
+        mPointsCount = -1;
+    }
+
+    /**
+     * Finds all point pairs closer than lineDistance, rebuilding the list if the points moved
+     * too far, their count changed or the distances changed. Every pair is reported exactly once.
+     * Point indices must refer to the same points between calls.
+     *
+     * @param x            the x coordinates of points
+     * @param y            the y coordinates of points
+     * @param count        the number of points
+     * @param left         the left edge of the area where points are expected to be
+     * @param top          the top edge of the area where points are expected to be
+     * @param right        the right edge of the area where points are expected to be
+     * @param bottom       the bottom edge of the area where points are expected to be
+     * @param lineDistance the exclusive maximum distance between points of a pair. Must be
+     *                     positive.
+     * @param skin         the distance added to lineDistance for candidates. Must be positive.
+     * @param callback     the callback to report pairs to
+     */
+    void findPairs(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int count,
+            final float left,
+            final float top,
+            final float right,
+            final float bottom,
+            final float lineDistance,
+            final float skin,
+            @NonNull final SpatialGrid.PairCallback callback) {
+        mPairsTested = 0;
+        if (count != mPointsCount || lineDistance != mLineDistance || skin != mSkin
+                || !testCandidates(x, y, count, callback)) {
+            build(x, y, count, left, top, right, bottom, lineDistance, skin, callback);
+        }
+    }
+
+    /**
+     * Returns the number of pairs whose distance was calculated by the latest
+     * {@link #findPairs(float[], float[], int, float, float, float, float, float, float,
+     * SpatialGrid.PairCallback)} call, including the ones tested for rebuilding.
+     *
+     * @return the number of tested pairs
+     */
+    int getPairsTested() {
+        return mPairsTested;
+    }
+
+    @VisibleForTesting
+    int getBuildsCount() {
+        return mBuildsCount;
+    }
+
+    /**
+     * Reports pairs from the candidates and pairs of loose points from testing them against all
+     * points.
+     *
+     * @return false if nothing was reported because a rebuild is cheaper
+     */
+    private boolean testCandidates(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int count,
+            @NonNull final SpatialGrid.PairCallback callback) {
+        final float[] buildX = mBuildX;
+        final float[] buildY = mBuildY;
+        final boolean[] loose = mLoose;
+        final float maxDisplacement = mSkin / 2f;
+        final float maxDisplacementSquared = maxDisplacement * maxDisplacement;
+        int looseCount = 0;
+        for (int i = 0; i < count; i++) {
+            final float dx = x[i] - buildX[i];
+            final float dy = y[i] - buildY[i];
+            loose[i] = dx * dx + dy * dy > maxDisplacementSquared;
+            if (loose[i]) {
+                looseCount++;
+            }
+        }
+
+        // A rebuild tests at least the candidates and every point
+        if ((long) looseCount * count > mCandidatesCount + count) {
+            return false;
+        }
+
+        final int[] candidates = mCandidates;
+        final int candidatesEnd = mCandidatesCount * 2;
+        final float lineDistance = mLineDistance;
+        for (int i = 0; i < candidatesEnd; i += 2) {
+            final int p1 = candidates[i];
+            final int p2 = candidates[i + 1];
+            if (!loose[p1] && !loose[p2]) {
+                testPair(x, y, p1, p2, lineDistance, callback);
+            }
+        }
+
+        if (looseCount != 0) {
+            for (int p1 = 0; p1 < count; p1++) {
+                if (loose[p1]) {
+                    for (int p2 = 0; p2 < count; p2++) {
+                        // Pairs of two loose points are tested from the lower index only
+                        if (p2 != p1 && !(loose[p2] && p2 < p1)) {
+                            testPair(x, y, p1, p2, lineDistance, callback);
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void testPair(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int p1,
+            final int p2,
+            final float maxDistance,
+            @NonNull final SpatialGrid.PairCallback callback) {
+        mPairsTested++;
+        final float distance = SpatialGrid.distance(x[p1], y[p1], x[p2], y[p2]);
+        if (distance < maxDistance) {
+            callback.onPair(p1, p2, distance);
+        }
+    }
+
+    private void build(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int count,
+            final float left,
+            final float top,
+            final float right,
+            final float bottom,
+            final float lineDistance,
+            final float skin,
+            @NonNull final SpatialGrid.PairCallback callback) {
+        if (mBuildX.length < count) {
+            mBuildX = new float[x.length];
+            mBuildY = new float[x.length];
+            mLoose = new boolean[x.length];
+        }
+        System.arraycopy(x, 0, mBuildX, 0, count);
+        System.arraycopy(y, 0, mBuildY, 0, count);
+        mPointsCount = count;
+        mLineDistance = lineDistance;
+        mSkin = skin;
+        mCandidatesCount = 0;
+        mBuildsCount++;
+
+        mCallback = callback;
+        try {
+            mSearch.findPairs(x, y, count, left, top, right, bottom, lineDistance + skin,
+                    mCollector);
+        } finally {
+            mCallback = null;
+        }
+        mPairsTested += mSearch.getPairsTested();
+    }
+
+    private void addCandidate(final int index1, final int index2) {
+        final int offset = mCandidatesCount * 2;
+        if (offset + 2 > mCandidates.length) {
+            final int[] candidates = new int[mCandidates.length * 2];
+            System.arraycopy(mCandidates, 0, candidates, 0, offset);
+            mCandidates = candidates;
+        }
+        mCandidates[offset] = index1;
+        mCandidates[offset + 1] = index2;
+        mCandidatesCount++;
+    }
+}
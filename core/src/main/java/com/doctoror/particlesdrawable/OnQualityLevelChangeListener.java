@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.Keep;
+
+/**
+ * Receives quality level changes made by the adaptive quality governor of
+ * {@code ParticlesView} and {@code ParticlesDrawable}.
+ */
+@Keep
+public interface OnQualityLevelChangeListener {
+
+    /**
+     * Everything is drawn as configured.
+     */
+    int QUALITY_FULL = 0;
+
+    /**
+     * Lines and dots are drawn without anti-aliasing.
+     */
+    int QUALITY_NO_ANTI_ALIAS = 1;
+
+    /**
+     * Same as {@link #QUALITY_NO_ANTI_ALIAS}, and only three quarters of dots are drawn, with
+     * lines of 85% of the line distance.
+     */
+    int QUALITY_REDUCED = 2;
+
+    /**
+     * Same as {@link #QUALITY_NO_ANTI_ALIAS}, and only half of dots are drawn, with lines of 70%
+     * of the line distance, at half the frame rate.
+     */
+    int QUALITY_LOW = 3;
+
+    /**
+     * Called on the drawing thread when the quality level changes.
+     *
+     * @param level the new quality level, one of {@link #QUALITY_FULL},
+     *              {@link #QUALITY_NO_ANTI_ALIAS}, {@link #QUALITY_REDUCED} and
+     *              {@link #QUALITY_LOW}
+     */
+    void onQualityLevelChanged(int level);
+}
@@ -18,26 +18,25 @@ package com.doctoror.particlesdrawable;
 import android.support.annotation.Keep;
 
 /**
- * The Particles scene
+ * Strategies of finding dot pairs to connect with lines.
  */
 @Keep
-public interface ParticlesScene extends ParticlesSceneConfiguration {
+public final class PairFinder {
 
     /**
-     * Use this if you want to manually set to next frame, while animations are stopped.
+     * Dots are bucketed into a uniform grid of cells not smaller than the line distance, and
+     * tested against the dots of the same and the adjacent cells. Suits most scenes.
      */
-    void nextFrame();
+    public static final int GRID = 0;
 
     /**
-     * Resets and makes new random frame. This is useful for re-generating new fancy static
-     * backgrounds when not using animations.
+     * Dots are kept sorted by x and tested against the following dots within the line distance
+     * along x. The order is updated with an insertion sort, which is near-linear because it
+     * barely changes between frames. Suits very wide and short scenes.
      */
-    void makeBrandNewFrame();
-
-    /**
-     * Resets and makes new random frame where all points are out of screen bounds and will be
-     * moving into the screen once animation starts.
-     */
-    void makeBrandNewFrameWithPointsOffscreen();
+    public static final int SWEEP_AND_PRUNE = 1;
 
+    private PairFinder() {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Finds point pairs closer than a distance.
+ *
+ * @see PairFinder
+ */
+interface PairSearch {
+
+    /**
+     * Finds all point pairs closer than maxDistance. Every pair is reported exactly once.
+     *
+     * @param x           the x coordinates of points
+     * @param y           the y coordinates of points
+     * @param count       the number of points
+     * @param left        the left edge of the area where points are expected to be
+     * @param top         the top edge of the area where points are expected to be
+     * @param right       the right edge of the area where points are expected to be
+     * @param bottom      the bottom edge of the area where points are expected to be
+     * @param maxDistance the exclusive maximum distance between points of a pair. Must be
+     *                    positive.
+     * @param callback    the callback to report pairs to
+     */
+    void findPairs(@NonNull float[] x,
+            @NonNull float[] y,
+            int count,
+            float left,
+            float top,
+            float right,
+            float bottom,
+            float maxDistance,
+            @NonNull SpatialGrid.PairCallback callback);
+
+    /**
+     * Returns the number of pairs whose distance was calculated by the latest
+     * {@link #findPairs(float[], float[], int, float, float, float, float, float,
+     * SpatialGrid.PairCallback)} call.
+     *
+     * @return the number of tested pairs
+     */
+    int getPairsTested();
+}
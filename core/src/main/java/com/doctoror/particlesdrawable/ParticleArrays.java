@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.IntRange;
+
+/**
+ * Holds particles as a structure of arrays. Particle at index i is made of the i-th element of
+ * every array. The arrays may be larger than {@link #size()} and are replaced when growing, so
+ * do not keep references to them across calls that add particles.
+ */
+final class ParticleArrays {
+
+    /**
+     * Direction cosine
+     */
+    float[] dCos;
+
+    /**
+     * Direction sine
+     */
+    float[] dSin;
+
+    /**
+     * Current X
+     */
+    float[] x;
+
+    /**
+     * Current Y
+     */
+    float[] y;
+
+    /**
+     * X before the latest fixed simulation step
+     */
+    float[] prevX;
+
+    /**
+     * Y before the latest fixed simulation step
+     */
+    float[] prevY;
+
+    /**
+     * Step multiplier for this dot
+     */
+    float[] stepMultiplier;
+
+    /**
+     * Radius of this dot
+     */
+    float[] radius;
+
+    private int mSize;
+
+    ParticleArrays(@IntRange(from = 0) final int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initial capacity must not be negative");
+        }
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Returns the number of particles
+     *
+     * @return the number of particles
+     */
+    int size() {
+        return mSize;
+    }
+
+    boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    int capacity() {
+        return x.length;
+    }
+
+    /**
+     * Makes sure arrays can hold the specified number of particles without growing
+     *
+     * @param capacity the required capacity
+     */
+    void ensureCapacity(final int capacity) {
+        if (capacity > x.length) {
+            final float[] dCos = this.dCos;
+            final float[] dSin = this.dSin;
+            final float[] x = this.x;
+            final float[] y = this.y;
+            final float[] prevX = this.prevX;
+            final float[] prevY = this.prevY;
+            final float[] stepMultiplier = this.stepMultiplier;
+            final float[] radius = this.radius;
+
+            allocate(Math.max(capacity, x.length * 2));
+
+            System.arraycopy(dCos, 0, this.dCos, 0, mSize);
+            System.arraycopy(dSin, 0, this.dSin, 0, mSize);
+            System.arraycopy(x, 0, this.x, 0, mSize);
+            System.arraycopy(y, 0, this.y, 0, mSize);
+            System.arraycopy(prevX, 0, this.prevX, 0, mSize);
+            System.arraycopy(prevY, 0, this.prevY, 0, mSize);
+            System.arraycopy(stepMultiplier, 0, this.stepMultiplier, 0, mSize);
+            System.arraycopy(radius, 0, this.radius, 0, mSize);
+        }
+    }
+
+    /**
+     * Appends a particle with all values set to zero
+     *
+     * @return index of the new particle
+     */
+    int add() {
+        ensureCapacity(mSize + 1);
+        final int index = mSize++;
+        dCos[index] = 0f;
+        dSin[index] = 0f;
+        x[index] = 0f;
+        y[index] = 0f;
+        prevX[index] = 0f;
+        prevY[index] = 0f;
+        stepMultiplier[index] = 0f;
+        radius[index] = 0f;
+        return index;
+    }
+
+    /**
+     * Removes particles past the specified size in constant time. The capacity is retained, so
+     * adding particles back does not allocate.
+     *
+     * @param size the number of particles to keep; if not less than the current size, nothing
+     *             is removed
+     */
+    void truncate(@IntRange(from = 0) final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+        if (size < mSize) {
+            mSize = size;
+        }
+    }
+
+    /**
+     * Removes all particles. The capacity is retained.
+     */
+    void clear() {
+        mSize = 0;
+    }
+
+    private void allocate(final int capacity) {
+        dCos = new float[capacity];
+        dSin = new float[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        prevX = new float[capacity];
+        prevY = new float[capacity];
+        stepMultiplier = new float[capacity];
+        radius = new float[capacity];
+    }
+}
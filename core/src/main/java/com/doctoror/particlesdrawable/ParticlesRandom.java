@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.IntRange;
+
+/**
+ * Source of random numbers for placing and directing dots. Implementations do not need to be
+ * thread-safe, {@link SceneController} only uses them while holding its lock.
+ */
+interface ParticlesRandom {
+
+    /**
+     * Resets the generator so that it produces the same sequence for the same seed.
+     *
+     * @param seed the seed
+     */
+    void setSeed(long seed);
+
+    /**
+     * Returns the generator state. Restoring it with {@link #setState(long)} makes the generator
+     * produce the same sequence as after this call.
+     *
+     * @return the generator state
+     */
+    long getState();
+
+    /**
+     * Restores the state returned by {@link #getState()}.
+     *
+     * @param state the generator state
+     */
+    void setState(long state);
+
+    /**
+     * Returns a uniformly distributed value between 0 (inclusive) and bound (exclusive).
+     *
+     * @param bound the upper bound, must be positive
+     * @return the random value
+     * @throws IllegalArgumentException if bound is not positive
+     */
+    int nextInt(@IntRange(from = 1) int bound);
+}
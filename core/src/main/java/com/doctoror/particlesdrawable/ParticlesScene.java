@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.Keep;
+import android.support.annotation.Nullable;
+
+/**
+ * The Particles scene
+ */
+@Keep
+public interface ParticlesScene extends ParticlesSceneConfiguration {
+
+    /**
+     * Use this if you want to manually set to next frame, while animations are stopped.
+     */
+    void nextFrame();
+
+    /**
+     * Resets and makes new random frame. This is useful for re-generating new fancy static
+     * backgrounds when not using animations.
+     */
+    void makeBrandNewFrame();
+
+    /**
+     * Resets and makes new random frame where all points are out of screen bounds and will be
+     * moving into the screen once animation starts.
+     */
+    void makeBrandNewFrameWithPointsOffscreen();
+
+    /**
+     * Seeds the generator that places and directs dots. A scene that is seeded, then made with
+     * {@link #makeBrandNewFrame()} and stepped with the same frame times always produces the
+     * same frames, which is useful for screenshot tests and comparing performance runs.
+     *
+     * @param seed the seed
+     */
+    void setSeed(long seed);
+
+    /**
+     * Jumps to the time since the dots were placed by {@link #makeBrandNewFrame()},
+     * {@link #makeBrandNewFrameWithPointsOffscreen()} or the first layout. Dots travel in
+     * straight lines, so the frame is computed directly instead of stepping every frame in
+     * between, in time proportional to the number of dots and respawns. Seeking back replays
+     * respawns from the time the dots were placed, so a seeded scene shows the same frame for
+     * the same time, which suits scroll-linked and scrubbable animations.
+     *
+     * The current step multiplier and number of dots are used for the whole timeline.
+     *
+     * @param timeMillis the time in milliseconds
+     * @throws IllegalArgumentException if timeMillis is negative
+     */
+    void seek(@IntRange(from = 0) long timeMillis);
+
+    /**
+     * Sets the listener to receive {@link FrameStats} after every drawn frame. Frame cost
+     * percentiles only cover frames drawn while a listener is set.
+     *
+     * @param listener the listener, or null to remove
+     */
+    void setFrameStatsListener(@Nullable FrameStatsListener listener);
+
+}
@@ -41,6 +41,27 @@ public interface ParticlesSceneConfiguration {
      */
     int getFrameDelay();
 
+    /**
+     * Sets the number of simulation steps per second. When set, the scene is advanced in steps of
+     * fixed duration independent of the frame rate, and particle positions are interpolated
+     * between the two latest steps when drawing. This allows simulating at a lower rate than
+     * drawing without visible stutter. Zero means the scene is advanced once per frame by the
+     * time elapsed since the previous frame.
+     *
+     * @param rate simulation steps per second, or zero for stepping once per frame
+     * @throws IllegalArgumentException if rate is a negative number
+     */
+    void setSimulationRate(@IntRange(from = 0) int rate);
+
+    /**
+     * Returns the number of simulation steps per second, or zero if the scene is stepped once
+     * per frame.
+     *
+     * @return simulation steps per second
+     * @see #setSimulationRate(int)
+     */
+    int getSimulationRate();
+
     /**
      * Sets step multiplier. Use this to control speed.
      *
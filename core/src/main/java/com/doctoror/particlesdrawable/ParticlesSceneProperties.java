@@ -15,15 +15,12 @@
  */
 package com.doctoror.particlesdrawable;
 
-import android.graphics.Color;
 import android.support.annotation.ColorInt;
 import android.support.annotation.FloatRange;
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.VisibleForTesting;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 
 /**
@@ -31,15 +28,14 @@ import java.util.Locale;
  */
 final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
 
-    private final List<Particle> mPoints = new ArrayList<Particle>(
-            Defaults.DEFAULT_DOT_NUMBER);
+    private final ParticleArrays mPoints = new ParticleArrays(Defaults.DEFAULT_DOT_NUMBER);
 
-    private float mMinDotRadius = Defaults.DEFAULT_MIN_DOT_RADIUS;
-    private float mMaxDotRadius = Defaults.DEFAULT_MAX_DOT_RADIUS;
+    private float mMinDotRadius;
+    private float mMaxDotRadius;
 
-    private float mLineThickness = Defaults.DEFAULT_LINE_THICKNESS;
+    private float mLineThickness;
 
-    private float mLineDistance = Defaults.DEFAULT_LINE_DISTANCE;
+    private float mLineDistance;
 
     private int mNumDots = Defaults.DEFAULT_DOT_NUMBER;
 
@@ -50,6 +46,7 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
     private int mLineColor = Defaults.DEFAULT_LINE_COLOR;
 
     private int mDelay = Defaults.DEFAULT_DELAY;
+    private int mSimulationRate = Defaults.DEFAULT_SIMULATION_RATE;
 
     private float mStepMultiplier = Defaults.DEFAULT_STEP_MULTIPLIER;
 
@@ -62,7 +59,27 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
     private int mWidth;
     private int mHeight;
 
-    List<Particle> getMutablePoints() {
+    /**
+     * Creates the configuration with default dimensions in pixels for display density of 1.
+     */
+    ParticlesSceneProperties() {
+        this(1f);
+    }
+
+    /**
+     * Creates the configuration with default dimensions for the specified display density.
+     *
+     * @param density the display density, the number of pixels per density-independent pixel
+     */
+    ParticlesSceneProperties(final float density) {
+        mMinDotRadius = Defaults.DEFAULT_MIN_DOT_RADIUS_DP * density;
+        mMaxDotRadius = Defaults.DEFAULT_MAX_DOT_RADIUS_DP * density;
+        mLineThickness = Defaults.DEFAULT_LINE_THICKNESS_DP * density;
+        mLineDistance = Defaults.DEFAULT_LINE_DISTANCE_DP * density;
+    }
+
+    @NonNull
+    ParticleArrays getMutablePoints() {
         return mPoints;
     }
 
@@ -82,14 +99,17 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
         return mHeight;
     }
 
-    void addPoint(@NonNull final Particle p) {
-        mPoints.add(p);
+    /**
+     * Appends a new point with all values set to zero
+     *
+     * @return index of the new point
+     */
+    int addPoint() {
+        return mPoints.add();
     }
 
-    void removeFirstPoint() {
-        if (!mPoints.isEmpty()) {
-            mPoints.remove(0);
-        }
+    void truncatePoints(@IntRange(from = 0) final int size) {
+        mPoints.truncate(size);
     }
 
     void clearPoints() {
@@ -105,7 +125,7 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
     static int resolveDotColorWithDrawableAlpha(
             @ColorInt final int dotColor,
             final int drawableAlpha) {
-        final int alpha = Color.alpha(dotColor) * drawableAlpha / 255;
+        final int alpha = (dotColor >>> 24) * drawableAlpha / 255;
         return (dotColor & 0x00FFFFFF) | (alpha << 24);
     }
 
@@ -132,18 +152,47 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
         return mDelay;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSimulationRate(@IntRange(from = 0) final int rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+        mSimulationRate = rate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSimulationRate() {
+        return mSimulationRate;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void setStepMultiplier(@FloatRange(from = 0) final float stepMultiplier) {
+        checkStepMultiplier(stepMultiplier);
+        mStepMultiplier = stepMultiplier;
+    }
+
+    /**
+     * Checks the argument of {@link #setStepMultiplier(float)}
+     *
+     * @param stepMultiplier the step multiplier
+     * @throws IllegalArgumentException if the multiplier is not valid
+     */
+    static void checkStepMultiplier(final float stepMultiplier) {
         if (stepMultiplier < 0) {
             throw new IllegalArgumentException("step multiplier must not be nagative");
         }
         if (Float.compare(stepMultiplier, Float.NaN) == 0) {
             throw new IllegalArgumentException("step multiplier must be a valid float");
         }
-        mStepMultiplier = stepMultiplier;
     }
 
     /**
@@ -161,6 +210,19 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
     public void setDotRadiusRange(
             @FloatRange(from = 0.5f) final float minRadius,
             @FloatRange(from = 0.5f) final float maxRadius) {
+        checkDotRadiusRange(minRadius, maxRadius);
+        mMinDotRadius = minRadius;
+        mMaxDotRadius = maxRadius;
+    }
+
+    /**
+     * Checks the arguments of {@link #setDotRadiusRange(float, float)}
+     *
+     * @param minRadius the minimum dot radius
+     * @param maxRadius the maximum dot radius
+     * @throws IllegalArgumentException if the range is not valid
+     */
+    static void checkDotRadiusRange(final float minRadius, final float maxRadius) {
         if (minRadius < 0.5f || maxRadius < 0.5f) {
             throw new IllegalArgumentException("Dot radius must not be less than 0.5");
         }
@@ -173,8 +235,6 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
                     "Min radius must not be greater than max, but min = %f, max = %f",
                     minRadius, maxRadius));
         }
-        mMinDotRadius = minRadius;
-        mMaxDotRadius = maxRadius;
     }
 
     /**
@@ -220,13 +280,23 @@ final class ParticlesSceneProperties implements ParticlesSceneConfiguration {
      */
     @Override
     public void setLineDistance(@FloatRange(from = 0) final float lineDistance) {
+        checkLineDistance(lineDistance);
+        mLineDistance = lineDistance;
+    }
+
+    /**
+     * Checks the argument of {@link #setLineDistance(float)}
+     *
+     * @param lineDistance the line distance
+     * @throws IllegalArgumentException if the distance is not valid
+     */
+    static void checkLineDistance(final float lineDistance) {
         if (lineDistance < 0) {
             throw new IllegalArgumentException("line distance must not be negative");
         }
         if (Float.compare(lineDistance, Float.NaN) == 0) {
             throw new IllegalArgumentException("line distance must be a valid float");
         }
-        mLineDistance = lineDistance;
     }
 
     /**
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+/**
+ * Particle positions and radiuses as of a single simulation frame, published by the simulation
+ * thread for drawing. The arrays may be larger than {@link #count}.
+ */
+final class ParticlesSnapshot {
+
+    float[] x = new float[0];
+    float[] y = new float[0];
+    float[] radius = new float[0];
+
+    int count;
+
+    /**
+     * Simulation totals as of this snapshot
+     */
+    long simulateDurationTotalNanos;
+    int respawnsTotal;
+
+    /**
+     * Makes sure arrays can hold the specified number of particles, without keeping the values
+     *
+     * @param capacity the required capacity
+     */
+    void ensureCapacity(final int capacity) {
+        if (x.length < capacity) {
+            x = new float[capacity];
+            y = new float[capacity];
+            radius = new float[capacity];
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.VisibleForTesting;
+
+/**
+ * Picks a {@link OnQualityLevelChangeListener quality level} by comparing the average cost of
+ * recent frames with the target budget.
+ *
+ * The level is lowered by one when the average of a full window of frames exceeds the budget, and
+ * raised by one when the average of a full window stays below {@link #RECOVER_THRESHOLD} of the
+ * budget. The window is restarted after every change, so that the effect of the change is
+ * measured before the next one, and the gap between the thresholds keeps the level from
+ * oscillating.
+ */
+final class QualityGovernor {
+
+    @VisibleForTesting
+    static final int WINDOW_SIZE = 30;
+
+    /**
+     * Fraction of the budget the average frame cost must stay below to raise the level
+     */
+    @VisibleForTesting
+    static final float RECOVER_THRESHOLD = 0.6f;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static final float[] DOTS_FRACTION = {1f, 1f, 0.75f, 0.5f};
+    private static final float[] LINE_DISTANCE_FRACTION = {1f, 1f, 0.85f, 0.7f};
+    private static final int[] FRAME_DELAY_MULTIPLIER = {1, 1, 1, 2};
+
+    private final long[] mCosts = new long[WINDOW_SIZE];
+    private int mCostsCount;
+    private int mNextCost;
+    private long mCostsSum;
+
+    private long mBudgetNanos = Defaults.DEFAULT_TARGET_FRAME_BUDGET_MILLIS * NANOS_PER_MILLI;
+
+    private int mLevel = OnQualityLevelChangeListener.QUALITY_FULL;
+
+    void setTargetFrameBudget(@IntRange(from = 1) final int millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("budget must be positive");
+        }
+        mBudgetNanos = millis * NANOS_PER_MILLI;
+        resetWindow();
+    }
+
+    int getTargetFrameBudget() {
+        return (int) (mBudgetNanos / NANOS_PER_MILLI);
+    }
+
+    int getLevel() {
+        return mLevel;
+    }
+
+    /**
+     * Records the cost of a frame and changes the level if needed.
+     *
+     * @param nanos the frame cost in nanoseconds
+     * @return true if the level has changed
+     */
+    boolean addFrameCost(final long nanos) {
+        mCostsSum += nanos - mCosts[mNextCost];
+        mCosts[mNextCost] = nanos;
+        mNextCost = (mNextCost + 1) % WINDOW_SIZE;
+        if (mCostsCount < WINDOW_SIZE) {
+            mCostsCount++;
+        }
+        if (mCostsCount < WINDOW_SIZE) {
+            return false;
+        }
+
+        final long average = mCostsSum / WINDOW_SIZE;
+        if (average > mBudgetNanos && mLevel < OnQualityLevelChangeListener.QUALITY_LOW) {
+            mLevel++;
+            resetWindow();
+            return true;
+        }
+        if (average < mBudgetNanos * RECOVER_THRESHOLD
+                && mLevel > OnQualityLevelChangeListener.QUALITY_FULL) {
+            mLevel--;
+            resetWindow();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns to full quality and forgets recorded frames
+     */
+    void reset() {
+        mLevel = OnQualityLevelChangeListener.QUALITY_FULL;
+        resetWindow();
+    }
+
+    boolean isAntiAliasEnabled() {
+        return mLevel < OnQualityLevelChangeListener.QUALITY_NO_ANTI_ALIAS;
+    }
+
+    float getDotsFraction() {
+        return DOTS_FRACTION[mLevel];
+    }
+
+    float getLineDistanceFraction() {
+        return LINE_DISTANCE_FRACTION[mLevel];
+    }
+
+    int getFrameDelayMultiplier() {
+        return FRAME_DELAY_MULTIPLIER[mLevel];
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            mCosts[i] = 0L;
+        }
+        mCostsCount = 0;
+        mNextCost = 0;
+        mCostsSum = 0L;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+/**
+ * Directions, in whole degrees, that aim a point placed off an edge of the scene towards the
+ * scene.
+ *
+ * A point aims between the two corners of the scene, inset by a margin, that face its edge.
+ * Every edge is split into {@link #SEGMENTS} segments, and a segment keeps the directions that
+ * aim between the corners from both of its ends. Picking a direction then takes two table
+ * lookups. The table is built with trigonometry only when the bounds or the offset change.
+ */
+final class RespawnAim {
+
+    static final int EDGE_LEFT = 0;
+    static final int EDGE_TOP = 1;
+    static final int EDGE_RIGHT = 2;
+    static final int EDGE_BOTTOM = 3;
+
+    /**
+     * The number of segments every edge is split into
+     */
+    static final int SEGMENTS = 64;
+
+    private static final int EDGES = 4;
+
+    /**
+     * The direction pointing from every edge into the scene, in degrees
+     */
+    private static final int[] NORMAL = {0, 90, 180, 270};
+
+    /**
+     * The first direction of a segment, in [0, 360), by edge and segment
+     */
+    private final int[] mStart = new int[EDGES * SEGMENTS];
+
+    /**
+     * The number of directions of a segment, at least 1, by edge and segment
+     */
+    private final int[] mSpan = new int[EDGES * SEGMENTS];
+
+    private final float mInset;
+
+    private boolean mValid;
+    private int mWidth;
+    private int mHeight;
+    private float mOffset;
+
+    /**
+     * @param inset the distance from the scene bounds to the corners points aim between
+     */
+    RespawnAim(final float inset) {
+        mInset = inset;
+    }
+
+    /**
+     * Returns whether the table was built for the same bounds and offset.
+     *
+     * @param width  the scene width
+     * @param height the scene height
+     * @param offset the distance outside the scene at which points are placed
+     * @return false if the table must be rebuilt
+     */
+    boolean isValidFor(final int width, final int height, final float offset) {
+        return mValid && mWidth == width && mHeight == height && mOffset == offset;
+    }
+
+    /**
+     * Builds the directions of every segment of every edge.
+     *
+     * @param width  the scene width
+     * @param height the scene height
+     * @param offset the distance outside the scene at which points are placed
+     */
+    void rebuild(final int width, final int height, final float offset) {
+        final float left = mInset;
+        final float top = mInset;
+        final float right = width - mInset;
+        final float bottom = height - mInset;
+        for (int edge = 0; edge < EDGES; edge++) {
+            final boolean vertical = edge == EDGE_LEFT || edge == EDGE_RIGHT;
+            final int length = vertical ? height : width;
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                final float from = (float) segment * length / SEGMENTS;
+                final float to = (float) (segment + 1) * length / SEGMENTS;
+                double min = Double.NEGATIVE_INFINITY;
+                double max = Double.POSITIVE_INFINITY;
+                for (int end = 0; end < 2; end++) {
+                    final float position = end == 0 ? from : to;
+                    final float x;
+                    final float y;
+                    final double a;
+                    final double b;
+                    switch (edge) {
+                        case EDGE_LEFT:
+                            x = -offset;
+                            y = position;
+                            a = relativeAngle(edge, left, top, x, y);
+                            b = relativeAngle(edge, left, bottom, x, y);
+                            break;
+
+                        case EDGE_TOP:
+                            x = position;
+                            y = -offset;
+                            a = relativeAngle(edge, right, top, x, y);
+                            b = relativeAngle(edge, left, top, x, y);
+                            break;
+
+                        case EDGE_RIGHT:
+                            x = width + offset;
+                            y = position;
+                            a = relativeAngle(edge, right, bottom, x, y);
+                            b = relativeAngle(edge, right, top, x, y);
+                            break;
+
+                        default:
+                            x = position;
+                            y = height + offset;
+                            a = relativeAngle(edge, left, bottom, x, y);
+                            b = relativeAngle(edge, right, bottom, x, y);
+                            break;
+                    }
+                    min = Math.max(min, Math.min(a, b));
+                    max = Math.min(max, Math.max(a, b));
+                }
+
+                int start = (int) Math.ceil(min);
+                int span = (int) Math.floor(max) - start;
+                if (span < 1) {
+                    // The ends aim at no common direction, aim between them
+                    start = (int) Math.round((min + max) / 2d);
+                    span = 1;
+                }
+                final int index = edge * SEGMENTS + segment;
+                mStart[index] = (NORMAL[edge] + start + 360) % 360;
+                mSpan[index] = span;
+            }
+        }
+        mWidth = width;
+        mHeight = height;
+        mOffset = offset;
+        mValid = true;
+    }
+
+    /**
+     * Returns the first direction of the segment the position falls into.
+     *
+     * @param edge     one of the edge constants
+     * @param position the position along the edge, x for top and bottom, y for left and right
+     * @return the first direction in degrees, in [0, 360)
+     */
+    int getStart(final int edge, final int position) {
+        return mStart[index(edge, position)];
+    }
+
+    /**
+     * Returns the number of directions of the segment the position falls into.
+     *
+     * @param edge     one of the edge constants
+     * @param position the position along the edge, x for top and bottom, y for left and right
+     * @return the number of directions, at least 1
+     */
+    int getSpan(final int edge, final int position) {
+        return mSpan[index(edge, position)];
+    }
+
+    private int index(final int edge, final int position) {
+        final int length = edge == EDGE_LEFT || edge == EDGE_RIGHT ? mHeight : mWidth;
+        return edge * SEGMENTS + (int) ((long) position * SEGMENTS / length);
+    }
+
+    /**
+     * Returns the direction from a point to a corner relative to the normal of the edge.
+     *
+     * @return the angle in degrees, in [-180, 180)
+     */
+    private static double relativeAngle(final int edge, final float cornerX,
+            final float cornerY, final float x, final float y) {
+        final double angle = Math.toDegrees(Math.atan2(cornerY - y, cornerX - x))
+                - NORMAL[edge];
+        return angle - 360d * Math.floor((angle + 180d) / 360d);
+    }
+}
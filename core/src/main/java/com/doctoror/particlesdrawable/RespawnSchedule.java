@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Predicts when points leave the padded scene bounds, so that stepping does not have to check
+ * every point every step.
+ *
+ * Points move in straight lines, so the distance a point travels before it leaves the bounds is
+ * known when it is placed. Time is measured in scene steps travelled by a point of step
+ * multiplier 1, and points are kept in a binary min-heap by the travel at which they exit.
+ * Finding the exited points is then proportional to the number of exits.
+ */
+final class RespawnSchedule {
+
+    /**
+     * Point indices ordered as a min-heap of {@link #mExits}
+     */
+    private int[] mHeap = new int[0];
+
+    /**
+     * The travel at which every point exits, by point index
+     */
+    private double[] mExits = new double[0];
+
+    private int mSize;
+
+    /**
+     * Scene steps travelled since the schedule was created
+     */
+    private double mTravelled;
+
+    private boolean mValid;
+    private int mWidth;
+    private int mHeight;
+    private float mPadding;
+
+    /**
+     * Makes {@link #isValidFor(int, int, float, int)} return false until the next
+     * {@link #rebuild(ParticleArrays, int, int, float)}. Call when points are replaced.
+     */
+    void invalidate() {
+        mValid = false;
+    }
+
+    /**
+     * Returns whether the schedule was built for the same bounds and number of points.
+     *
+     * @param width   the scene width
+     * @param height  the scene height
+     * @param padding the distance outside the scene at which points exit
+     * @param count   the number of points
+     * @return false if the schedule must be rebuilt
+     */
+    boolean isValidFor(final int width, final int height, final float padding, final int count) {
+        return mValid && mWidth == width && mHeight == height && mPadding == padding
+                && mSize == count;
+    }
+
+    /**
+     * Predicts the exits of all points from their current positions.
+     *
+     * @param points  the points
+     * @param width   the scene width
+     * @param height  the scene height
+     * @param padding the distance outside the scene at which points exit
+     */
+    void rebuild(@NonNull final ParticleArrays points,
+            final int width,
+            final int height,
+            final float padding) {
+        final int size = points.size();
+        if (mHeap.length < size) {
+            mHeap = new int[points.capacity()];
+            mExits = new double[points.capacity()];
+        }
+        mWidth = width;
+        mHeight = height;
+        mPadding = padding;
+        mSize = size;
+        for (int i = 0; i < size; i++) {
+            mHeap[i] = i;
+            mExits[i] = predictExit(points, i);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        mValid = true;
+    }
+
+    /**
+     * Advances the time to the travel. Must not be less than {@link #getTravelled()}.
+     *
+     * @param travelled the scene steps travelled since the schedule was created
+     */
+    void advanceTo(final double travelled) {
+        mTravelled = travelled;
+    }
+
+    /**
+     * Returns the scene steps travelled since the schedule was created.
+     *
+     * @return the travel
+     */
+    double getTravelled() {
+        return mTravelled;
+    }
+
+    /**
+     * Returns the point that exits the bounds the earliest, if it exits before the travel.
+     *
+     * @param travelled the travel to look up to
+     * @return the index of the point or -1 if no point exits before the travel
+     */
+    int peekExitedBefore(final double travelled) {
+        if (mSize == 0) {
+            return -1;
+        }
+        final int index = mHeap[0];
+        return mExits[index] < travelled ? index : -1;
+    }
+
+    /**
+     * Returns the travel at which the point exits the bounds.
+     *
+     * @param index the index of the point
+     * @return the travel of the exit
+     */
+    double getExit(final int index) {
+        return mExits[index];
+    }
+
+    /**
+     * Predicts the exit of the earliest exiting point after it was placed anew.
+     *
+     * @param points the points
+     */
+    void rescheduleExited(@NonNull final ParticleArrays points) {
+        mExits[mHeap[0]] = predictExit(points, mHeap[0]);
+        siftDown(0);
+    }
+
+    private double predictExit(@NonNull final ParticleArrays points, final int index) {
+        final float multiplier = points.stepMultiplier[index];
+        if (!(multiplier > 0f)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return mTravelled + exitDistance(points.x[index], points.y[index],
+                points.dCos[index], points.dSin[index], mWidth, mHeight, mPadding) / multiplier;
+    }
+
+    /**
+     * Returns the distance along the direction after which the point is farther than the
+     * padding outside the bounds.
+     *
+     * @param x       the point x
+     * @param y       the point y
+     * @param dCos    the x component of the unit direction
+     * @param dSin    the y component of the unit direction
+     * @param width   the scene width
+     * @param height  the scene height
+     * @param padding the distance outside the scene at which points exit
+     * @return the distance, negative if the point is already out, or infinity if it never exits
+     */
+    static double exitDistance(final float x,
+            final float y,
+            final float dCos,
+            final float dSin,
+            final int width,
+            final int height,
+            final float padding) {
+        if (x + padding < 0 || x - padding > width || y + padding < 0 || y - padding > height) {
+            return -1.0;
+        }
+        double distance = Double.POSITIVE_INFINITY;
+        if (dCos > 0f) {
+            distance = Math.min(distance, ((double) width + padding - x) / dCos);
+        } else if (dCos < 0f) {
+            distance = Math.min(distance, ((double) x + padding) / -dCos);
+        }
+        if (dSin > 0f) {
+            distance = Math.min(distance, ((double) height + padding - y) / dSin);
+        } else if (dSin < 0f) {
+            distance = Math.min(distance, ((double) y + padding) / -dSin);
+        }
+        return distance;
+    }
+
+    private void siftDown(int position) {
+        final int[] heap = mHeap;
+        final double[] exits = mExits;
+        final int index = heap[position];
+        final double exit = exits[index];
+        final int half = mSize / 2;
+        while (position < half) {
+            int child = position * 2 + 1;
+            final int right = child + 1;
+            if (right < mSize && exits[heap[right]] < exits[heap[child]]) {
+                child = right;
+            }
+            if (exits[heap[child]] >= exit) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = index;
+    }
+}
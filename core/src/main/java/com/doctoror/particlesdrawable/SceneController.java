@@ -0,0 +1,1695 @@
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.FloatRange;
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Particles Scene Controller
+ */
+final class SceneController implements Runnable, ParticlesScene {
+
+    /**
+     * Path calculation padding in density-independent pixels.
+     *
+     * @see #applyFreshPointOffScreen(ParticleArrays, int)
+     */
+    private static final float PCC_DP = 18f;
+
+    private static final float STEP_PER_MS = 0.05f;
+
+    /**
+     * Maximum number of fixed simulation steps made per frame. The rest of the elapsed time is
+     * dropped, so that a long frame does not make the following frames even longer.
+     */
+    @VisibleForTesting
+    static final int MAX_STEPS_PER_FRAME = 5;
+
+    /**
+     * Minimum number of points per part of a pass run on the {@link WorkerPool}. Smaller scenes
+     * are processed faster by a single thread than handed over to the workers.
+     */
+    @VisibleForTesting
+    static final int MIN_POINTS_PER_PART = 256;
+
+    /**
+     * Number of row stripes per thread when finding pairs, so that threads that got sparse
+     * stripes take over the rest of the work instead of waiting for dense ones.
+     */
+    private static final int STRIPES_PER_THREAD = 4;
+
+    /**
+     * Line buffers are sized for this many times the expected number of lines, so that they do
+     * not grow when dots gather closer than on average
+     */
+    private static final int LINES_CAPACITY_FACTOR = 2;
+
+    private final ParticlesSceneProperties mScene;
+
+    private final Clock mClock;
+
+    private final ParticlesRandom mRandom;
+
+    private final SpatialGrid mGrid = new SpatialGrid();
+
+    private final RespawnSchedule mRespawnSchedule = new RespawnSchedule();
+
+    /**
+     * Directions of points placed off screen, aiming between corners inset by the path
+     * calculation padding
+     */
+    private final RespawnAim mRespawnAim;
+
+    private final SweepAndPrune mSweepAndPrune = new SweepAndPrune();
+
+    private final NeighborList mNeighborList = new NeighborList(mGrid);
+
+    private int mPairFinder = Defaults.DEFAULT_PAIR_FINDER;
+
+    private float mNeighborListSkin = Defaults.DEFAULT_NEIGHBOR_LIST_SKIN;
+
+    private final SpatialGrid.PairCallback mLineDrawer = new SpatialGrid.PairCallback() {
+
+        @Override
+        public void onPair(final int index1, final int index2, final float distance) {
+            addLine(mLines, getScene(), index1, index2, distance);
+        }
+    };
+
+    private final LineBuffer mLines = new LineBuffer();
+
+    /**
+     * Moves a part of the points. Run on the {@link WorkerPool} by {@link #stepPoints(float)}.
+     */
+    private final WorkerPool.Task mStepTask = new WorkerPool.Task() {
+
+        @Override
+        public void run(final int part) {
+            final int pointsSize = getScene().getMutablePoints().size();
+            final int from = part * mStepPartSize;
+            movePoints(mParallelSceneStep, from, Math.min(from + mStepPartSize, pointsSize));
+        }
+    };
+
+    /**
+     * Finds the pairs of a stripe of grid rows. Run on the {@link WorkerPool} by
+     * {@link #findPairsParallel(WorkerPool, int)}.
+     */
+    private final WorkerPool.Task mFindPairsTask = new WorkerPool.Task() {
+
+        @Override
+        public void run(final int part) {
+            final int rows = mGrid.getRows();
+            final LineStripe stripe = mStripes[part];
+            stripe.lines.clear();
+            stripe.pairsTested = mGrid.findPairs(mDrawX, mDrawY, mDrawLineDistance, stripe,
+                    rows * part / mStripesCount, rows * (part + 1) / mStripesCount);
+        }
+    };
+
+    private int mParallelism = Defaults.DEFAULT_PARALLELISM;
+
+    /**
+     * Runs stepping and pair finding in parallel while running with parallelism greater than 1.
+     * Replaced while holding {@link #mLock}.
+     */
+    @Nullable
+    private WorkerPool mWorkerPool;
+
+    private float mParallelSceneStep;
+    private int mStepPartSize;
+
+    /**
+     * Per-stripe line buffers, merged in stripe order after a parallel pair search
+     */
+    private LineStripe[] mStripes = new LineStripe[0];
+    private int mStripesCount;
+
+    private final ParticleDotFactory mOnScreenDotFactory = new ParticleDotFactory() {
+        @Override
+        public void addNewPoint(final int position) {
+            SceneController.this.addNewPoint(position % 2 == 0);
+        }
+    };
+
+    private final ParticleDotFactory mOffScreenDotFactory = new ParticleDotFactory() {
+        @Override
+        public void addNewPoint(final int position) {
+            SceneController.this.addNewPoint(false);
+        }
+    };
+
+    /**
+     * Generator state and factory the dots were placed with, which {@link #seek(long)} replays
+     * from when seeking back
+     */
+    private long mTimelineOriginRandomState;
+
+    @NonNull
+    private ParticleDotFactory mTimelineOriginFactory = mOnScreenDotFactory;
+
+    /**
+     * Scene steps travelled by a dot of step multiplier 1 since the dots were placed
+     */
+    private double mTimelineTravel;
+
+    /**
+     * Dot centers in the format accepted by
+     * {@link IParticlesView#fillCircles(float[], float[], int, int)}
+     */
+    private float[] mDotCenters = new float[Defaults.DEFAULT_DOT_NUMBER * 2];
+
+    /**
+     * Point positions interpolated between the two latest fixed simulation steps
+     */
+    private float[] mInterpolatedX = new float[0];
+    private float[] mInterpolatedY = new float[0];
+
+    /**
+     * Point positions used by the frame being drawn
+     */
+    private float[] mDrawX;
+    private float[] mDrawY;
+
+    /**
+     * Time elapsed since the latest fixed simulation step, in milliseconds
+     */
+    private float mAccumulatedTime;
+
+    /**
+     * Fraction of the fixed simulation step elapsed since the latest step
+     */
+    private float mInterpolation;
+
+    /**
+     * Guards the scene state shared with {@link SimulationThread}. While the simulation thread
+     * is running, it is the only thread that changes the points, and it holds the lock only to
+     * apply {@link #mPendingChanges} and to publish snapshots, so that other threads never wait
+     * for a whole step.
+     */
+    private final Object mLock = new Object();
+
+    /**
+     * Changes to the points and to the values the steps depend on, made while the
+     * {@link SimulationThread} is running. The simulation thread applies them in order before
+     * its next step, so getters may return previous values until then. Guarded by
+     * {@link #mLock}.
+     */
+    private final List<Runnable> mPendingChanges = new ArrayList<Runnable>();
+
+    /**
+     * Point snapshots published for drawing while the {@link SimulationThread} is running
+     */
+    private final SnapshotBuffer mSnapshots = new SnapshotBuffer();
+
+    /**
+     * The running simulation thread. Set to null only after the thread exits, so that the points
+     * are never changed directly during its step.
+     */
+    @Nullable
+    private volatile SimulationThread mSimulationThread;
+
+    private boolean mBackgroundSimulationEnabled = Defaults.DEFAULT_BACKGROUND_SIMULATION_ENABLED;
+
+    private boolean mPointsInited;
+
+    private final QualityGovernor mQualityGovernor = new QualityGovernor();
+
+    private boolean mAdaptiveQualityEnabled = Defaults.DEFAULT_ADAPTIVE_QUALITY_ENABLED;
+
+    /**
+     * Whether the quality governor has disabled anti-aliasing of the view
+     */
+    private boolean mAntiAliasDisabled;
+
+    @Nullable
+    private OnQualityLevelChangeListener mQualityLevelListener;
+
+    /**
+     * Line distance used by the frame being drawn
+     */
+    private float mDrawLineDistance;
+
+    private long mLastFrameTime;
+    private long mLastDrawDuration;
+
+    /**
+     * Simulation totals, updated while holding {@link #mLock}
+     */
+    private long mSimulateDurationTotalNanos;
+    private int mRespawnsTotal;
+
+    /**
+     * Simulation totals as of the latest drawn frame
+     */
+    private long mDrawnSimulateDurationTotalNanos;
+    private int mDrawnRespawnsTotal;
+
+    private final FrameCostHistogram mFrameCostHistogram = new FrameCostHistogram();
+    private final FrameStats mFrameStats = new FrameStats(mFrameCostHistogram);
+
+    @Nullable
+    private FrameStatsListener mFrameStatsListener;
+
+    /**
+     * Read by the drawing thread of {@link ParticlesTextureView} while set from the UI thread
+     */
+    private volatile boolean mAnimating;
+
+    private final IParticlesView mView;
+    private final SceneScheduler mViewScheduler;
+
+    /**
+     * Creates the controller for display density of 1, so that default dimensions are in pixels,
+     * with frame times from {@link MonotonicClock}.
+     */
+    SceneController(@NonNull final IParticlesView view,
+            @NonNull final SceneScheduler viewScheduler) {
+        this(view, viewScheduler, new MonotonicClock(), 1f);
+    }
+
+    /**
+     * Creates the controller with a {@link SplitMixRandom} of unique seed.
+     *
+     * @param view          the view to draw to
+     * @param viewScheduler the scheduler of view frames
+     * @param clock         the source of frame times
+     * @param density       the display density, used for default dimensions
+     */
+    SceneController(@NonNull final IParticlesView view,
+            @NonNull final SceneScheduler viewScheduler,
+            @NonNull final Clock clock,
+            final float density) {
+        this(view, viewScheduler, clock, new SplitMixRandom(), density);
+    }
+
+    /**
+     * @param view          the view to draw to
+     * @param viewScheduler the scheduler of view frames
+     * @param clock         the source of frame times
+     * @param random        the source of dot positions, directions, speeds and radiuses
+     * @param density       the display density, used for default dimensions
+     */
+    SceneController(@NonNull final IParticlesView view,
+            @NonNull final SceneScheduler viewScheduler,
+            @NonNull final Clock clock,
+            @NonNull final ParticlesRandom random,
+            final float density) {
+        mView = view;
+        mViewScheduler = viewScheduler;
+        mClock = clock;
+        mRandom = random;
+        mScene = new ParticlesSceneProperties(density);
+        mRespawnAim = new RespawnAim(PCC_DP * density);
+    }
+
+    @NonNull
+    private ParticlesSceneProperties getScene() {
+        return mScene;
+    }
+
+    @NonNull
+    private IParticlesView getView() {
+        return mView;
+    }
+
+    @NonNull
+    private SceneScheduler getViewScheduler() {
+        return mViewScheduler;
+    }
+
+    private void resetLastFrameTime() {
+        mLastFrameTime = 0L;
+        mAccumulatedTime = 0f;
+        mInterpolation = 0f;
+    }
+
+    private void gotoNextFrameAndSchedule(final long frameTime) {
+        if (mSimulationThread != null) {
+            // The scene is advanced by the simulation thread, only draw the latest snapshot
+            getViewScheduler().invalidate();
+        } else {
+            nextFrame(frameTime);
+        }
+        final int frameDelay = mScene.getFrameDelay() * mQualityGovernor.getFrameDelayMultiplier();
+        getViewScheduler().scheduleNextFrame(Math.max(frameDelay - mLastDrawDuration, 5L));
+    }
+
+    void setAlpha(final int alpha) {
+        synchronized (mLock) {
+            mScene.setAlpha(alpha);
+        }
+    }
+
+    int getAlpha() {
+        return mScene.getAlpha();
+    }
+
+    void start() {
+        if (!mAnimating) {
+            mAnimating = true;
+            resetLastFrameTime();
+            if (mParallelism > 1) {
+                replaceWorkerPool(new WorkerPool(mParallelism));
+            }
+            if (mBackgroundSimulationEnabled) {
+                startSimulationThread();
+            }
+            gotoNextFrameAndSchedule(mClock.uptimeMillis());
+        }
+    }
+
+    void stop() {
+        if (mAnimating) {
+            mAnimating = false;
+            stopSimulationThread();
+            replaceWorkerPool(null);
+            resetLastFrameTime();
+            getViewScheduler().unscheduleNextFrame();
+        }
+    }
+
+    boolean isRunning() {
+        return mAnimating;
+    }
+
+    /**
+     * Enables or disables advancing the scene on a background thread while running.
+     *
+     * @param enabled true to advance the scene on a background thread
+     */
+    void setBackgroundSimulationEnabled(final boolean enabled) {
+        if (mBackgroundSimulationEnabled != enabled) {
+            mBackgroundSimulationEnabled = enabled;
+            if (mAnimating) {
+                if (enabled) {
+                    startSimulationThread();
+                } else {
+                    stopSimulationThread();
+                }
+            }
+        }
+    }
+
+    boolean isBackgroundSimulationEnabled() {
+        return mBackgroundSimulationEnabled;
+    }
+
+    /**
+     * Sets the number of threads that step particles and find connection lines while running.
+     * Large scenes are split into parts processed by a pool of worker threads together with the
+     * calling thread, and the results are merged in the same order as by a single thread, so
+     * frames do not depend on parallelism.
+     *
+     * @param parallelism the number of threads, 1 to process on the calling thread only
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    void setParallelism(@IntRange(from = 1) final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (mParallelism != parallelism) {
+            mParallelism = parallelism;
+            if (mAnimating) {
+                replaceWorkerPool(parallelism > 1 ? new WorkerPool(parallelism) : null);
+            }
+        }
+    }
+
+    int getParallelism() {
+        return mParallelism;
+    }
+
+    /**
+     * Enables reusing connection line candidates across frames. Candidates are the pairs closer
+     * than the line distance plus the skin, and they are searched for again only when dots
+     * moved farther than half of the skin. A larger skin rebuilds less often, but tests more
+     * candidates every frame.
+     *
+     * @param skin the skin distance in pixels, 0 to search for lines every frame
+     * @throws IllegalArgumentException if skin is negative
+     */
+    void setNeighborListSkin(@FloatRange(from = 0) final float skin) {
+        if (skin < 0f) {
+            throw new IllegalArgumentException("skin must not be negative");
+        }
+        synchronized (mLock) {
+            mNeighborListSkin = skin;
+        }
+    }
+
+    float getNeighborListSkin() {
+        return mNeighborListSkin;
+    }
+
+    /**
+     * Sets the strategy of finding dot pairs to connect with lines. Every strategy finds the
+     * same pairs.
+     *
+     * @param pairFinder one of {@link PairFinder#GRID} and {@link PairFinder#SWEEP_AND_PRUNE}
+     * @throws IllegalArgumentException if the strategy is unknown
+     */
+    void setPairFinder(final int pairFinder) {
+        final PairSearch search = pairSearch(pairFinder);
+        synchronized (mLock) {
+            if (pairFinder != mPairFinder) {
+                mNeighborList.setPairSearch(search);
+                mPairFinder = pairFinder;
+            }
+        }
+    }
+
+    int getPairFinder() {
+        return mPairFinder;
+    }
+
+    @NonNull
+    private PairSearch pairSearch(final int pairFinder) {
+        switch (pairFinder) {
+            case PairFinder.GRID:
+                return mGrid;
+
+            case PairFinder.SWEEP_AND_PRUNE:
+                return mSweepAndPrune;
+
+            default:
+                throw new IllegalArgumentException("Unknown pair finder: " + pairFinder);
+        }
+    }
+
+    /**
+     * Replaces the worker pool and shuts down the previous one. The pool is replaced while
+     * holding {@link #mLock}, so that a synchronized draw does not use the previous pool after
+     * it is shut down. While the {@link SimulationThread} is running, the previous pool is shut
+     * down between its steps, since a step may be using it.
+     *
+     * @param pool the new pool or null to process on the calling thread only
+     */
+    private void replaceWorkerPool(@Nullable final WorkerPool pool) {
+        final WorkerPool previous;
+        synchronized (mLock) {
+            previous = mWorkerPool;
+            mWorkerPool = pool;
+            if (previous != null && mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        previous.shutdown();
+                    }
+                });
+                return;
+            }
+        }
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of parts to split a pass over the points into. Takes the parallelism
+     * rather than the pool, because the JIT loads the classes in the signature of a method it
+     * compiles, which would load {@link WorkerPool} on the frame thread while running without it.
+     *
+     * @param parallelism the parallelism of the worker pool, 1 if there is no pool
+     * @param count       the number of points
+     * @return the number of parts, 1 if the pass should not be run on the pool
+     */
+    private static int parallelParts(final int parallelism, final int count) {
+        return Math.max(1, Math.min(parallelism, count / MIN_POINTS_PER_PART));
+    }
+
+    /**
+     * Enables or disables lowering the quality when frames take longer than the target budget.
+     * Disabling returns to full quality.
+     *
+     * @param enabled true to adapt quality to the frame cost
+     */
+    void setAdaptiveQualityEnabled(final boolean enabled) {
+        synchronized (mLock) {
+            if (mAdaptiveQualityEnabled != enabled) {
+                mAdaptiveQualityEnabled = enabled;
+                final boolean degraded =
+                        mQualityGovernor.getLevel() != OnQualityLevelChangeListener.QUALITY_FULL;
+                mQualityGovernor.reset();
+                if (degraded) {
+                    onQualityLevelChanged();
+                }
+            }
+        }
+    }
+
+    boolean isAdaptiveQualityEnabled() {
+        return mAdaptiveQualityEnabled;
+    }
+
+    /**
+     * Sets the time the drawing thread is expected to spend on a frame.
+     *
+     * @param millis the budget in milliseconds
+     * @throws IllegalArgumentException if millis is less than 1
+     */
+    void setTargetFrameBudget(@IntRange(from = 1) final int millis) {
+        synchronized (mLock) {
+            mQualityGovernor.setTargetFrameBudget(millis);
+        }
+    }
+
+    int getTargetFrameBudget() {
+        return mQualityGovernor.getTargetFrameBudget();
+    }
+
+    int getQualityLevel() {
+        return mQualityGovernor.getLevel();
+    }
+
+    void setOnQualityLevelChangeListener(@Nullable final OnQualityLevelChangeListener l) {
+        synchronized (mLock) {
+            mQualityLevelListener = l;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFrameStatsListener(@Nullable final FrameStatsListener listener) {
+        synchronized (mLock) {
+            mFrameStatsListener = listener;
+            mFrameCostHistogram.clear();
+        }
+    }
+
+    private void onQualityLevelChanged() {
+        // Only touch the view when crossing the anti-aliasing level, so that the anti-aliasing
+        // set by the user is kept at other levels and restored when quality recovers
+        final boolean antiAliasDisabled = !mQualityGovernor.isAntiAliasEnabled();
+        if (mAntiAliasDisabled != antiAliasDisabled) {
+            mAntiAliasDisabled = antiAliasDisabled;
+            getView().setAntiAlias(!antiAliasDisabled);
+        }
+        if (mQualityLevelListener != null) {
+            mQualityLevelListener.onQualityLevelChanged(mQualityGovernor.getLevel());
+        }
+    }
+
+    private void startSimulationThread() {
+        final SimulationThread thread = new SimulationThread(this, mClock);
+        synchronized (mLock) {
+            // Publish current points so that there is something to draw before the first frame
+            publishSnapshot();
+            mSimulationThread = thread;
+        }
+        thread.start();
+    }
+
+    /**
+     * Stops the simulation thread, waits for it to finish the step it may be making, and applies
+     * the changes it has not got to.
+     */
+    private void stopSimulationThread() {
+        final SimulationThread thread = mSimulationThread;
+        if (thread != null) {
+            thread.interrupt();
+            boolean interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    // The points can not be changed until the thread exits, so it must be waited for
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (mLock) {
+                mSimulationThread = null;
+                applyPendingChanges();
+            }
+        }
+    }
+
+    /**
+     * Applies changes queued while the simulation thread is running. Must be called while
+     * holding {@link #mLock}.
+     */
+    private void applyPendingChanges() {
+        final List<Runnable> changes = mPendingChanges;
+        final int size = changes.size();
+        for (int i = 0; i < size; i++) {
+            changes.get(i).run();
+        }
+        changes.clear();
+    }
+
+    /**
+     * Applies pending changes, makes a frame and publishes a snapshot of it. Called by the
+     * {@link SimulationThread}. The frame is made without holding {@link #mLock}, since other
+     * threads queue their changes instead of changing the points while the thread is running.
+     *
+     * @param thread    the calling thread
+     * @param frameTime the frame time in {@link Clock} time base
+     * @return false if the calling thread is no longer the simulation thread and must quit
+     */
+    boolean simulate(@NonNull final SimulationThread thread, final long frameTime) {
+        synchronized (mLock) {
+            if (mSimulationThread != thread) {
+                return false;
+            }
+            applyPendingChanges();
+        }
+        advance(frameTime);
+        synchronized (mLock) {
+            publishSnapshot();
+        }
+        return true;
+    }
+
+    /**
+     * Copies the points as they should be drawn to the back snapshot and publishes it.
+     * Must be called while holding {@link #mLock}.
+     */
+    private void publishSnapshot() {
+        final ParticleArrays points = getScene().getMutablePoints();
+        final int pointsSize = points.size();
+        final ParticlesSnapshot snapshot = mSnapshots.getBack();
+        snapshot.ensureCapacity(points.capacity());
+        if (getScene().getSimulationRate() != 0) {
+            interpolatePoints(points, snapshot.x, snapshot.y);
+        } else {
+            System.arraycopy(points.x, 0, snapshot.x, 0, pointsSize);
+            System.arraycopy(points.y, 0, snapshot.y, 0, pointsSize);
+        }
+        System.arraycopy(points.radius, 0, snapshot.radius, 0, pointsSize);
+        snapshot.count = pointsSize;
+        snapshot.simulateDurationTotalNanos = mSimulateDurationTotalNanos;
+        snapshot.respawnsTotal = mRespawnsTotal;
+        mSnapshots.publish();
+    }
+
+    public void run() {
+        run(mClock.uptimeMillis());
+    }
+
+    /**
+     * Same as {@link #run()}, but steps to the specified frame time instead of the current time.
+     *
+     * @param frameTime the frame time in {@link Clock} time base
+     */
+    void run(final long frameTime) {
+        if (mAnimating) {
+            gotoNextFrameAndSchedule(frameTime);
+        } else {
+            resetLastFrameTime();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void makeBrandNewFrame() {
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        applyBrandNewFrame(mOnScreenDotFactory);
+                    }
+                });
+            } else {
+                applyBrandNewFrame(mOnScreenDotFactory);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void makeBrandNewFrameWithPointsOffscreen() {
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        applyBrandNewFrame(mOffScreenDotFactory);
+                    }
+                });
+            } else {
+                applyBrandNewFrame(mOffScreenDotFactory);
+            }
+        }
+    }
+
+    private void applyBrandNewFrame(@NonNull final ParticleDotFactory factory) {
+        final ParticlesSceneProperties model = getScene();
+        if (model.getWidth() != 0 && model.getHeight() != 0) {
+            resetLastFrameTime();
+            initPoints(factory);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSeed(final long seed) {
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        mRandom.setSeed(seed);
+                    }
+                });
+            } else {
+                mRandom.setSeed(seed);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void seek(@IntRange(from = 0) final long timeMillis) {
+        if (timeMillis < 0) {
+            throw new IllegalArgumentException("timeMillis must not be negative");
+        }
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        applySeek(timeMillis);
+                    }
+                });
+            } else {
+                applySeek(timeMillis);
+            }
+        }
+        getViewScheduler().invalidate();
+    }
+
+    private void applySeek(final long timeMillis) {
+        final ParticlesSceneProperties model = getScene();
+        if (model.getWidth() != 0 && model.getHeight() != 0) {
+            final double travel = timeMillis * (double) STEP_PER_MS * model.getStepMultiplier();
+            if (travel < mTimelineTravel) {
+                mRandom.setState(mTimelineOriginRandomState);
+                initPoints(mTimelineOriginFactory);
+            }
+            // Dots travel in straight lines, so a single step of any length is exact
+            stepPoints((float) (travel - mTimelineTravel));
+
+            final ParticleArrays points = model.getMutablePoints();
+            final int pointsSize = points.size();
+            System.arraycopy(points.x, 0, points.prevX, 0, pointsSize);
+            System.arraycopy(points.y, 0, points.prevY, 0, pointsSize);
+            resetLastFrameTime();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFrameDelay(@IntRange(from = 0) final int delay) {
+        synchronized (mLock) {
+            getScene().setFrameDelay(delay);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFrameDelay() {
+        return getScene().getFrameDelay();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSimulationRate(@IntRange(from = 0) final int rate) {
+        if (rate < 0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        applySimulationRate(rate);
+                    }
+                });
+            } else {
+                applySimulationRate(rate);
+            }
+        }
+    }
+
+    private void applySimulationRate(final int rate) {
+        getScene().setSimulationRate(rate);
+        mAccumulatedTime = 0f;
+        mInterpolation = 0f;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSimulationRate() {
+        return getScene().getSimulationRate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStepMultiplier(@FloatRange(from = 0) final float stepMultiplier) {
+        ParticlesSceneProperties.checkStepMultiplier(stepMultiplier);
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        getScene().setStepMultiplier(stepMultiplier);
+                    }
+                });
+            } else {
+                getScene().setStepMultiplier(stepMultiplier);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getStepMultiplier() {
+        return getScene().getStepMultiplier();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDotRadiusRange(@FloatRange(from = 0.5f) final float minRadius,
+            @FloatRange(from = 0.5f) final float maxRadius) {
+        ParticlesSceneProperties.checkDotRadiusRange(minRadius, maxRadius);
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        getScene().setDotRadiusRange(minRadius, maxRadius);
+                    }
+                });
+            } else {
+                getScene().setDotRadiusRange(minRadius, maxRadius);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getMinDotRadius() {
+        return getScene().getMinDotRadius();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getMaxDotRadius() {
+        return getScene().getMaxDotRadius();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLineThickness(@FloatRange(from = 1) final float lineThickness) {
+        synchronized (mLock) {
+            getScene().setLineThickness(lineThickness);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getLineThickness() {
+        return getScene().getLineThickness();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLineDistance(@FloatRange(from = 0) final float lineDistance) {
+        ParticlesSceneProperties.checkLineDistance(lineDistance);
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        getScene().setLineDistance(lineDistance);
+                    }
+                });
+            } else {
+                getScene().setLineDistance(lineDistance);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getLineDistance() {
+        return getScene().getLineDistance();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setNumDots(@IntRange(from = 0) final int newNum) {
+        if (newNum < 0) {
+            throw new IllegalArgumentException("numPoints must not be negative");
+        }
+
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        applyNumDots(newNum);
+                    }
+                });
+            } else {
+                applyNumDots(newNum);
+            }
+        }
+    }
+
+    private void applyNumDots(final int newNum) {
+        final ParticlesSceneProperties model = getScene();
+        final int prevNumDots = model.getNumDots();
+        if (newNum != prevNumDots) {
+            if (mPointsInited) {
+                if (newNum > prevNumDots) {
+                    model.getMutablePoints().ensureCapacity(newNum);
+                    for (int i = prevNumDots; i < newNum; i++) {
+                        addNewPoint(false);
+                    }
+                } else {
+                    // The newest dots are dropped, which takes constant time and keeps
+                    // capacity for growing back without allocations
+                    model.truncatePoints(newNum);
+                }
+            }
+            model.setNumDots(newNum);
+            mRespawnSchedule.invalidate();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumDots() {
+        return getScene().getNumDots();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDotColor(@ColorInt final int dotColor) {
+        synchronized (mLock) {
+            getScene().setDotColor(dotColor);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDotColor() {
+        return getScene().getDotColor();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLineColor(@ColorInt final int lineColor) {
+        synchronized (mLock) {
+            getScene().setLineColor(lineColor);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLineColor() {
+        return getScene().getLineColor();
+    }
+
+    void setBounds(final int left, final int top, final int right, final int bottom) {
+        synchronized (mLock) {
+            if (mSimulationThread != null) {
+                mPendingChanges.add(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        applyBounds(right - left, bottom - top);
+                    }
+                });
+            } else {
+                applyBounds(right - left, bottom - top);
+            }
+        }
+    }
+
+    private void applyBounds(final int width, final int height) {
+        final ParticlesSceneProperties model = getScene();
+        model.setWidth(width);
+        model.setHeight(height);
+        if (width > 0 && height > 0) {
+            if (!mPointsInited) {
+                mPointsInited = true;
+                initPoints(mOnScreenDotFactory);
+            }
+        } else {
+            if (mPointsInited) {
+                mPointsInited = false;
+                model.clearPoints();
+            }
+        }
+    }
+
+    private void initPoints(@NonNull final ParticleDotFactory factory) {
+        final ParticlesSceneProperties model = getScene();
+        if (model.getWidth() == 0 || model.getHeight() == 0) {
+            throw new IllegalStateException("Cannot init points if width or height is 0");
+        }
+        model.clearPoints();
+        mRespawnSchedule.invalidate();
+        mTimelineOriginRandomState = mRandom.getState();
+        mTimelineOriginFactory = factory;
+        mTimelineTravel = 0.0;
+        model.getMutablePoints().ensureCapacity(model.getNumDots());
+        for (int i = 0; i < model.getNumDots(); i++) {
+            factory.addNewPoint(i);
+        }
+    }
+
+    private void addNewPoint(final boolean onScreen) {
+        final ParticlesSceneProperties model = getScene();
+        if (model.getWidth() == 0 || model.getHeight() == 0) {
+            throw new IllegalStateException("Cannot make new point if width or height is 0");
+        }
+
+        final int index = model.addPoint();
+        if (onScreen) {
+            applyFreshPointOnScreen(model.getMutablePoints(), index);
+        } else {
+            applyFreshPointOffScreen(model.getMutablePoints(), index);
+        }
+    }
+
+    /**
+     * Set new point coordinates somewhere on screen and apply new direction
+     *
+     * @param points the {@link ParticleArrays} to apply new values to
+     * @param i      the index of the point to apply new values to
+     */
+    private void applyFreshPointOnScreen(@NonNull final ParticleArrays points, final int i) {
+        final ParticlesSceneProperties model = getScene();
+        final int w = model.getWidth();
+        final int h = model.getHeight();
+        if (w == 0 || h == 0) {
+            throw new IllegalStateException("Cannot apply points if width or height is 0");
+        }
+
+        final int direction = mRandom.nextInt(360);
+        points.dCos[i] = Trig.cos(direction);
+        points.dSin[i] = Trig.sin(direction);
+        points.x[i] = (float) mRandom.nextInt(w);
+        points.y[i] = (float) mRandom.nextInt(h);
+        points.prevX[i] = points.x[i];
+        points.prevY[i] = points.y[i];
+        points.stepMultiplier[i] = newRandomIndividualDotStepMultiplier();
+        points.radius[i] = newRandomIndividualDotRadius();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void nextFrame() {
+        nextFrame(mClock.uptimeMillis());
+    }
+
+    private void nextFrame(final long frameTime) {
+        synchronized (mLock) {
+            // The scene is advanced by the simulation thread while it is running
+            if (mSimulationThread == null) {
+                advance(frameTime);
+            }
+        }
+        getViewScheduler().invalidate();
+    }
+
+    /**
+     * Advances the scene to the frame time. Must be called while holding {@link #mLock}.
+     *
+     * @param frameTime the frame time in {@link Clock} time base
+     */
+    private void advance(final long frameTime) {
+        final long startTime = System.nanoTime();
+        final ParticlesSceneProperties model = getScene();
+        final int simulationRate = model.getSimulationRate();
+        if (simulationRate == 0) {
+            final float step = mLastFrameTime == 0 ? 1f
+                    : Math.max(frameTime - mLastFrameTime, 0L) * STEP_PER_MS;
+            stepPoints(step * model.getStepMultiplier());
+        } else {
+            nextFixedSteps(model, frameTime, 1000f / simulationRate);
+        }
+        mLastFrameTime = frameTime;
+        mSimulateDurationTotalNanos += System.nanoTime() - startTime;
+    }
+
+    /**
+     * Makes as many fixed simulation steps as fit in the time elapsed since the previous frame,
+     * but not more than {@link #MAX_STEPS_PER_FRAME}, and stores the remainder for interpolating
+     * point positions when drawing.
+     *
+     * @param model        the scene
+     * @param frameTime    the frame time in {@link Clock} time base
+     * @param stepDuration the duration of a single step in milliseconds
+     */
+    private void nextFixedSteps(
+            @NonNull final ParticlesSceneProperties model,
+            final long frameTime,
+            final float stepDuration) {
+        if (mLastFrameTime == 0) {
+            // The first frame makes a single step
+            mAccumulatedTime = stepDuration;
+        } else {
+            mAccumulatedTime += Math.max(frameTime - mLastFrameTime, 0L);
+        }
+
+        final float sceneStep = stepDuration * STEP_PER_MS * model.getStepMultiplier();
+        int steps = 0;
+        while (mAccumulatedTime >= stepDuration) {
+            if (steps == MAX_STEPS_PER_FRAME) {
+                mAccumulatedTime %= stepDuration;
+                break;
+            }
+            stepPoints(sceneStep);
+            mAccumulatedTime -= stepDuration;
+            steps++;
+        }
+        mInterpolation = mAccumulatedTime / stepDuration;
+    }
+
+    /**
+     * Moves every point by its step, remembering the previous position. Points that went out of
+     * bounds are replaced with new ones at the moment of their exit, and travel the rest of the
+     * step from there, so that any split of the same time into steps makes the same frame.
+     *
+     * @param sceneStep the step multiplied by the scene step multiplier
+     */
+    private void stepPoints(final float sceneStep) {
+        final ParticlesSceneProperties model = getScene();
+        final ParticleArrays points = model.getMutablePoints();
+        final int pointsSize = points.size();
+        final float padding = model.getMinDotRadius() + model.getLineDistance();
+        final RespawnSchedule schedule = mRespawnSchedule;
+        if (!schedule.isValidFor(model.getWidth(), model.getHeight(), padding, pointsSize)) {
+            schedule.rebuild(points, model.getWidth(), model.getHeight(), padding);
+        }
+
+        final WorkerPool pool = mWorkerPool;
+        final int parts = parallelParts(pool != null ? pool.getParallelism() : 1, pointsSize);
+        if (parts > 1) {
+            mParallelSceneStep = sceneStep;
+            mStepPartSize = (pointsSize + parts - 1) / parts;
+            pool.run(mStepTask, parts);
+        } else {
+            movePoints(sceneStep, 0, pointsSize);
+        }
+        mTimelineTravel += sceneStep;
+
+        // Only the points predicted to exit are replaced, in the order of exits
+        final double end = schedule.getTravelled() + sceneStep;
+        int index;
+        while ((index = schedule.peekExitedBefore(end)) != -1) {
+            // Points that were out of bounds already are replaced right away
+            final double exit = Math.max(schedule.getExit(index), schedule.getTravelled());
+            schedule.advanceTo(exit);
+            applyFreshPointOffScreen(points, index);
+            schedule.rescheduleExited(points);
+
+            final float pointStep = (float) ((end - exit) * points.stepMultiplier[index]);
+            points.x[index] += pointStep * points.dCos[index];
+            points.y[index] += pointStep * points.dSin[index];
+            mRespawnsTotal++;
+        }
+        schedule.advanceTo(end);
+    }
+
+    /**
+     * Moves a range of points by their step. Only touches the points of the range, so ranges
+     * may be moved concurrently.
+     *
+     * @param sceneStep the step multiplied by the scene step multiplier
+     * @param from      the first point index
+     * @param to        the point index after the last one
+     */
+    private void movePoints(final float sceneStep, final int from, final int to) {
+        final ParticleArrays points = getScene().getMutablePoints();
+        final float[] x = points.x;
+        final float[] y = points.y;
+        final float[] prevX = points.prevX;
+        final float[] prevY = points.prevY;
+        final float[] dCos = points.dCos;
+        final float[] dSin = points.dSin;
+        final float[] stepMultiplier = points.stepMultiplier;
+        for (int i = from; i < to; i++) {
+            prevX[i] = x[i];
+            prevY[i] = y[i];
+
+            final float pointStep = sceneStep * stepMultiplier[i];
+            x[i] += pointStep * dCos[i];
+            y[i] += pointStep * dSin[i];
+        }
+    }
+
+    /**
+     * Generates new step multiplier for individual dot.
+     * The value is in [0.5:1.5] range
+     *
+     * @return new step multiplier for individual dot
+     */
+    private float newRandomIndividualDotStepMultiplier() {
+        return 1f + 0.1f * (mRandom.nextInt(11) - 5);
+    }
+
+    /**
+     * Generates new individual dot radius based on min and max radius setting
+     *
+     * @return new dot radius
+     */
+    private float newRandomIndividualDotRadius() {
+        final ParticlesSceneProperties model = getScene();
+        return model.getMinDotRadius() == model.getMaxDotRadius() ?
+                model.getMinDotRadius() : model.getMinDotRadius()
+                + (mRandom.nextInt(
+                (int) ((model.getMaxDotRadius() - model.getMinDotRadius()) * 100f))) / 100f;
+    }
+
+    /**
+     * Set new point coordinates somewhere off screen and apply new direction towards the screen
+     *
+     * @param points the {@link ParticleArrays} to apply new values to
+     * @param i      the index of the point to apply new values to
+     */
+    private void applyFreshPointOffScreen(@NonNull final ParticleArrays points, final int i) {
+        final ParticlesSceneProperties model = getScene();
+        final int w = model.getWidth();
+        final int h = model.getHeight();
+        if (w == 0 || h == 0) {
+            throw new IllegalStateException("Cannot apply points if width or height is 0");
+        }
+
+        float x = (float) mRandom.nextInt(w);
+        float y = (float) mRandom.nextInt(h);
+
+        // The offset to make when creating point of out bounds
+        final float offset = model.getMinDotRadius() + model.getLineDistance();
+        final RespawnAim aim = mRespawnAim;
+        if (!aim.isValidFor(w, h, offset)) {
+            aim.rebuild(w, h, offset);
+        }
+
+        // Make random offset and pick the direction of travel from the range that aims at our
+        // View from the point
+        final int edge = mRandom.nextInt(4);
+        final int position;
+        switch (edge) {
+            case RespawnAim.EDGE_LEFT:
+                x = -offset;
+                position = (int) y;
+                break;
+
+            case RespawnAim.EDGE_TOP:
+                y = -offset;
+                position = (int) x;
+                break;
+
+            case RespawnAim.EDGE_RIGHT:
+                x = w + offset;
+                position = (int) y;
+                break;
+
+            case RespawnAim.EDGE_BOTTOM:
+                y = h + offset;
+                position = (int) x;
+                break;
+
+            default:
+                throw new IllegalArgumentException("Supplied value out of range");
+        }
+
+        final int direction = aim.getStart(edge, position)
+                + mRandom.nextInt(aim.getSpan(edge, position));
+        points.dCos[i] = Trig.cos(direction);
+        points.dSin[i] = Trig.sin(direction);
+        points.x[i] = x;
+        points.y[i] = y;
+        points.prevX[i] = x;
+        points.prevY[i] = y;
+        points.stepMultiplier[i] = newRandomIndividualDotStepMultiplier();
+        points.radius[i] = newRandomIndividualDotRadius();
+    }
+
+    /**
+     * Same as {@link #draw()}, but holds the scene lock while drawing, for views that draw on a
+     * thread other than the one the scene is configured from.
+     */
+    void drawSynchronized() {
+        synchronized (mLock) {
+            draw();
+        }
+    }
+
+    void draw() {
+        final ParticlesSceneProperties model = getScene();
+        final long startTime = System.nanoTime();
+        final boolean simulatedInBackground = mSimulationThread != null;
+        final long simulateDurationTotal;
+        final int respawnsTotal;
+        if (simulatedInBackground) {
+            final ParticlesSnapshot snapshot = mSnapshots.acquireLatest();
+            drawPoints(model, snapshot.x, snapshot.y, snapshot.radius, snapshot.count);
+            simulateDurationTotal = snapshot.simulateDurationTotalNanos;
+            respawnsTotal = snapshot.respawnsTotal;
+        } else {
+            final ParticleArrays points = model.getMutablePoints();
+            if (model.getSimulationRate() != 0) {
+                if (mInterpolatedX.length < points.size()) {
+                    mInterpolatedX = new float[points.capacity()];
+                    mInterpolatedY = new float[points.capacity()];
+                }
+                interpolatePoints(points, mInterpolatedX, mInterpolatedY);
+                drawPoints(model, mInterpolatedX, mInterpolatedY, points.radius, points.size());
+            } else {
+                drawPoints(model, points.x, points.y, points.radius, points.size());
+            }
+            simulateDurationTotal = mSimulateDurationTotalNanos;
+            respawnsTotal = mRespawnsTotal;
+        }
+        final long drawDuration = System.nanoTime() - startTime;
+        mLastDrawDuration = drawDuration / 1000000L;
+
+        final long simulateDuration = simulateDurationTotal - mDrawnSimulateDurationTotalNanos;
+        final int respawns = respawnsTotal - mDrawnRespawnsTotal;
+        mDrawnSimulateDurationTotalNanos = simulateDurationTotal;
+        mDrawnRespawnsTotal = respawnsTotal;
+
+        final long frameCost = simulatedInBackground
+                ? drawDuration : drawDuration + simulateDuration;
+        if (mAdaptiveQualityEnabled && mQualityGovernor.addFrameCost(frameCost)) {
+            onQualityLevelChanged();
+        }
+
+        final FrameStatsListener frameStatsListener = mFrameStatsListener;
+        if (frameStatsListener != null) {
+            final FrameStats stats = mFrameStats;
+            stats.mSimulateDurationNanos = simulateDuration;
+            stats.mDrawDurationNanos = drawDuration;
+            stats.mFrameCostNanos = frameCost;
+            stats.mRespawns = respawns;
+            mFrameCostHistogram.record(frameCost);
+            frameStatsListener.onFrameStats(stats);
+        }
+    }
+
+    /**
+     * Draws connection lines and dots for the points
+     *
+     * @param model       the scene
+     * @param x           the x coordinates of points
+     * @param y           the y coordinates of points
+     * @param radius      the radiuses of points
+     * @param pointsCount the number of points
+     */
+    private void drawPoints(
+            @NonNull final ParticlesSceneProperties model,
+            @NonNull final float[] x,
+            @NonNull final float[] y,
+            @NonNull final float[] radius,
+            final int pointsCount) {
+        // Points left out at lower quality levels are still simulated, so that they are in place
+        // when the quality is raised back
+        final int count = (int) (pointsCount * mQualityGovernor.getDotsFraction());
+        mFrameStats.mPairsTested = 0;
+        mFrameStats.mLinesDrawn = 0;
+        mFrameStats.mDotsDrawn = count;
+        if (count > 0) {
+            mDrawX = x;
+            mDrawY = y;
+
+            final float lineDistance =
+                    model.getLineDistance() * mQualityGovernor.getLineDistanceFraction();
+            mDrawLineDistance = lineDistance;
+            if (lineDistance > 0f) {
+                // Draw connection lines for eligible points
+                final float offset = model.getMinDotRadius() + lineDistance;
+                final int linesCapacity = linesCapacity(count, lineDistance,
+                        model.getWidth(), model.getHeight());
+                mLines.clear();
+                mLines.ensureCapacity(linesCapacity);
+                if (mNeighborListSkin > 0f) {
+                    mNeighborList.findPairs(x, y, count, -offset, -offset,
+                            model.getWidth() + offset, model.getHeight() + offset,
+                            lineDistance, mNeighborListSkin, mLineDrawer);
+                    mFrameStats.mPairsTested = mNeighborList.getPairsTested();
+                } else if (mPairFinder == PairFinder.GRID) {
+                    mGrid.build(x, y, count, -offset, -offset,
+                            model.getWidth() + offset, model.getHeight() + offset, lineDistance);
+                    final WorkerPool pool = mWorkerPool;
+                    final int parts = parallelParts(
+                            pool != null ? pool.getParallelism() : 1, count);
+                    if (parts > 1 && mGrid.getRows() > 1) {
+                        findPairsParallel(pool, parts, linesCapacity);
+                    } else {
+                        mGrid.findPairs(x, y, count, lineDistance, mLineDrawer);
+                        mFrameStats.mPairsTested = mGrid.getPairsTested();
+                    }
+                } else {
+                    final PairSearch search = pairSearch(mPairFinder);
+                    search.findPairs(x, y, count, -offset, -offset,
+                            model.getWidth() + offset, model.getHeight() + offset,
+                            lineDistance, mLineDrawer);
+                    mFrameStats.mPairsTested = search.getPairsTested();
+                }
+                mFrameStats.mLinesDrawn = mLines.count();
+                if (mLines.count() != 0) {
+                    getView().drawLines(mLines.points, mLines.colors, mLines.count(),
+                            model.getLineThickness());
+                }
+            }
+
+            drawDots(model, x, y, radius, count);
+        }
+    }
+
+    /**
+     * Finds the pairs of {@link #mGrid} in stripes of rows on the worker pool, each stripe
+     * collecting its own lines, and merges the lines in stripe order, which is the order a
+     * single thread finds them in.
+     *
+     * @param pool          the worker pool
+     * @param threads       the number of threads to split the work for
+     * @param linesCapacity the number of lines to make room for in all stripes together
+     */
+    private void findPairsParallel(
+            @NonNull final WorkerPool pool,
+            final int threads,
+            final int linesCapacity) {
+        final int stripesCount = Math.min(mGrid.getRows(), threads * STRIPES_PER_THREAD);
+        if (mStripes.length < stripesCount) {
+            final LineStripe[] stripes = new LineStripe[stripesCount];
+            System.arraycopy(mStripes, 0, stripes, 0, mStripes.length);
+            for (int i = mStripes.length; i < stripesCount; i++) {
+                stripes[i] = new LineStripe();
+            }
+            mStripes = stripes;
+        }
+        mStripesCount = stripesCount;
+        for (int i = 0; i < stripesCount; i++) {
+            mStripes[i].lines.ensureCapacity(linesCapacity / stripesCount);
+        }
+        pool.run(mFindPairsTask, stripesCount);
+
+        int pairsTested = 0;
+        for (int i = 0; i < stripesCount; i++) {
+            final LineStripe stripe = mStripes[i];
+            mLines.addAll(stripe.lines);
+            pairsTested += stripe.pairsTested;
+        }
+        mFrameStats.mPairsTested = pairsTested;
+    }
+
+    /**
+     * Returns the number of lines to make room for before finding pairs. Dots are spread over
+     * the bounds evenly on average, so each of the pairs is closer than the line distance with
+     * the probability of the share of the bounds within the line distance of a dot.
+     *
+     * @param count        the number of dots
+     * @param lineDistance the line distance
+     * @param width        the scene width
+     * @param height       the scene height
+     * @return {@link #LINES_CAPACITY_FACTOR} times the expected number of lines, but not more
+     * than the number of pairs
+     */
+    @VisibleForTesting
+    static int linesCapacity(
+            final int count,
+            final float lineDistance,
+            final int width,
+            final int height) {
+        if (width <= 0 || height <= 0) {
+            return 0;
+        }
+        final double pairs = count * (count - 1.0) / 2.0;
+        final double share = Math.PI * lineDistance * lineDistance / ((double) width * height);
+        // Four floats per line must fit in an array
+        return (int) Math.min(Math.min(pairs, pairs * share * LINES_CAPACITY_FACTOR),
+                Integer.MAX_VALUE / 4);
+    }
+
+    /**
+     * Interpolates point positions between the two latest fixed simulation steps
+     *
+     * @param points        the {@link ParticleArrays} to interpolate
+     * @param interpolatedX the array to write interpolated x coordinates to
+     * @param interpolatedY the array to write interpolated y coordinates to
+     */
+    private void interpolatePoints(
+            @NonNull final ParticleArrays points,
+            @NonNull final float[] interpolatedX,
+            @NonNull final float[] interpolatedY) {
+        final int pointsSize = points.size();
+        final float[] x = points.x;
+        final float[] y = points.y;
+        final float[] prevX = points.prevX;
+        final float[] prevY = points.prevY;
+        final float interpolation = mInterpolation;
+        for (int i = 0; i < pointsSize; i++) {
+            interpolatedX[i] = prevX[i] + (x[i] - prevX[i]) * interpolation;
+            interpolatedY[i] = prevY[i] + (y[i] - prevY[i]) * interpolation;
+        }
+    }
+
+    /**
+     * Draw all points
+     *
+     * @param x      the x coordinates of points
+     * @param y      the y coordinates of points
+     * @param radius the radiuses of points
+     * @param count  the number of points
+     */
+    private void drawDots(
+            @NonNull final ParticlesSceneProperties model,
+            @NonNull final float[] x,
+            @NonNull final float[] y,
+            @NonNull final float[] radius,
+            final int count) {
+        if (mDotCenters.length < count * 2) {
+            mDotCenters = new float[x.length * 2];
+        }
+        final float[] centers = mDotCenters;
+        for (int i = 0; i < count; i++) {
+            centers[i * 2] = x[i];
+            centers[i * 2 + 1] = y[i];
+        }
+        getView().fillCircles(centers, radius, count, model.getDotColorResolvedAlpha());
+    }
+
+    /**
+     * Add a line between two points to a lines batch
+     *
+     * @param lines    the batch to add the line to
+     * @param model    the scene
+     * @param i1       the index of the neighbour point
+     * @param i2       the index of the neighbour point
+     * @param distance the distance between i1 and i2
+     */
+    private void addLine(
+            @NonNull final LineBuffer lines,
+            @NonNull final ParticlesSceneProperties model,
+            final int i1,
+            final int i2,
+            final float distance) {
+        final float alphaPercent = 1f - distance / mDrawLineDistance;
+        int alpha = (int) (255f * alphaPercent);
+        alpha = alpha * model.getAlpha() / 255;
+
+        final float[] x = mDrawX;
+        final float[] y = mDrawY;
+        lines.add(x[i1], y[i1], x[i2], y[i2],
+                (model.getLineColor() & 0x00FFFFFF) | (alpha << 24));
+    }
+
+    private interface ParticleDotFactory {
+
+        void addNewPoint(int position);
+    }
+
+    /**
+     * Collects the lines of a stripe of grid rows
+     */
+    private final class LineStripe implements SpatialGrid.PairCallback {
+
+        final LineBuffer lines = new LineBuffer();
+
+        int pairsTested;
+
+        @Override
+        public void onPair(final int index1, final int index2, final float distance) {
+            addLine(lines, getScene(), index1, index2, distance);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Advances the {@link SceneController} scene off the UI thread. Frames are made every frame
+ * delay until the thread is interrupted or the controller stops accepting them.
+ */
+final class SimulationThread extends Thread {
+
+    /**
+     * Maps to {@code Process.THREAD_PRIORITY_DISPLAY} on Android
+     */
+    private static final int PRIORITY_DISPLAY = Thread.NORM_PRIORITY + 2;
+
+    private final SceneController mController;
+    private final Clock mClock;
+
+    SimulationThread(@NonNull final SceneController controller, @NonNull final Clock clock) {
+        super("ParticlesSimulation");
+        mController = controller;
+        mClock = clock;
+        setPriority(PRIORITY_DISPLAY);
+    }
+
+    @Override
+    public void run() {
+        while (!isInterrupted()) {
+            final long frameTime = mClock.uptimeMillis();
+            if (!mController.simulate(this, frameTime)) {
+                return;
+            }
+            final long elapsed = mClock.uptimeMillis() - frameTime;
+            try {
+                sleep(Math.max(mController.getFrameDelay() - elapsed, 1L));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
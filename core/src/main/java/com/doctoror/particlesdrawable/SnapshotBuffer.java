@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free triple buffer of {@link ParticlesSnapshot} for a single writer and a single reader
+ * thread.
+ *
+ * The writer fills the back snapshot and publishes it by swapping it with the shared one. The
+ * reader swaps the front snapshot with the shared one when a newer snapshot was published. Each
+ * thread always owns a snapshot the other thread does not touch, so neither of them ever waits,
+ * and the reader always gets the latest complete snapshot.
+ */
+final class SnapshotBuffer {
+
+    /**
+     * Set in {@link #mShared} when the shared snapshot was published after the reader last
+     * acquired one.
+     */
+    private static final int FLAG_FRESH = 0x4;
+    private static final int INDEX_MASK = 0x3;
+
+    private final ParticlesSnapshot[] mSnapshots = new ParticlesSnapshot[]{
+            new ParticlesSnapshot(),
+            new ParticlesSnapshot(),
+            new ParticlesSnapshot()
+    };
+
+    /**
+     * Index of the shared snapshot combined with {@link #FLAG_FRESH}
+     */
+    private final AtomicInteger mShared = new AtomicInteger(0);
+
+    /**
+     * Index of the snapshot owned by the writer
+     */
+    private int mBack = 1;
+
+    /**
+     * Index of the snapshot owned by the reader
+     */
+    private int mFront = 2;
+
+    /**
+     * Returns the snapshot to be filled by the writer. Must only be called by the writer thread.
+     *
+     * @return the back snapshot
+     */
+    @NonNull
+    ParticlesSnapshot getBack() {
+        return mSnapshots[mBack];
+    }
+
+    /**
+     * Publishes the back snapshot. Must only be called by the writer thread.
+     */
+    void publish() {
+        mBack = mShared.getAndSet(mBack | FLAG_FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Returns the latest published snapshot. The snapshot stays unchanged until the next call.
+     * Must only be called by the reader thread.
+     *
+     * @return the front snapshot, which is empty if nothing was published yet
+     */
+    @NonNull
+    ParticlesSnapshot acquireLatest() {
+        if ((mShared.get() & FLAG_FRESH) != 0) {
+            mFront = mShared.getAndSet(mFront) & INDEX_MASK;
+        }
+        return mSnapshots[mFront];
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Uniform grid used for finding particle pairs that are closer than the line distance.
+ *
+ * Points are bucketed into square cells which are not smaller than the line distance, so only
+ * the points of the same and the adjacent cells have to be tested. The grid is rebuilt every
+ * frame with a counting sort and reuses its arrays, so no allocations are made once the arrays
+ * have grown to fit the scene.
+ */
+final class SpatialGrid implements PairSearch {
+
+    /**
+     * Upper bound for the number of cells per point. Cells are enlarged when exceeded, so that
+     * very short line distances do not make the grid traverse mostly empty cells.
+     */
+    private static final int MAX_CELLS_PER_POINT = 2;
+
+    private float mOriginX;
+    private float mOriginY;
+    private float mCellSize;
+
+    private int mColumns;
+    private int mRows;
+
+    /**
+     * Start offset of each cell in {@link #mCellPoints}, with an extra trailing element that
+     * holds the total points count.
+     */
+    private int[] mCellStarts = new int[0];
+
+    /**
+     * Point indices sorted by cell.
+     */
+    private int[] mCellPoints = new int[0];
+
+    /**
+     * Cell index of every point.
+     */
+    private int[] mPointCells = new int[0];
+
+    private int mPointsCount;
+
+    private int mPairsTested;
+
+    /**
+     * Receives point pairs found by {@link #findPairs(float[], float[], int, float, PairCallback)}
+     */
+    interface PairCallback {
+
+        void onPair(int index1, int index2, float distance);
+    }
+
+    /**
+     * Rebuilds the grid for the given points.
+     *
+     * @param x        the x coordinates of points
+     * @param y        the y coordinates of points
+     * @param count    the number of points
+     * @param left     the left edge of the area where points are expected to be
+     * @param top      the top edge of the area where points are expected to be
+     * @param right    the right edge of the area where points are expected to be
+     * @param bottom   the bottom edge of the area where points are expected to be
+     * @param cellSize the minimum cell size. Must be positive.
+     */
+    void build(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int count,
+            final float left,
+            final float top,
+            final float right,
+            final float bottom,
+            final float cellSize) {
+        if (!(cellSize > 0f)) {
+            throw new IllegalArgumentException("cell size must be positive");
+        }
+        final float width = Math.max(right - left, cellSize);
+        final float height = Math.max(bottom - top, cellSize);
+
+        float size = cellSize;
+        final int maxCells = Math.max(count, 1) * MAX_CELLS_PER_POINT;
+        if ((width / size) * (height / size) > maxCells) {
+            size = (float) Math.sqrt(width * height / maxCells);
+        }
+
+        mOriginX = left;
+        mOriginY = top;
+        mCellSize = size;
+        mColumns = Math.max(1, (int) Math.ceil(width / size));
+        mRows = Math.max(1, (int) Math.ceil(height / size));
+        mPointsCount = count;
+
+        final int cellsCount = mColumns * mRows;
+        if (mCellStarts.length < cellsCount + 1) {
+            mCellStarts = new int[cellsCount + 1];
+        }
+        if (mCellPoints.length < count) {
+            mCellPoints = new int[count];
+            mPointCells = new int[count];
+        }
+
+        final int[] cellStarts = mCellStarts;
+        final int[] pointCells = mPointCells;
+        for (int i = 0; i <= cellsCount; i++) {
+            cellStarts[i] = 0;
+        }
+
+        // Count points per cell
+        for (int i = 0; i < count; i++) {
+            final int cell = row(y[i]) * mColumns + column(x[i]);
+            pointCells[i] = cell;
+            cellStarts[cell]++;
+        }
+
+        // Convert counts to cell end offsets
+        for (int i = 1; i < cellsCount; i++) {
+            cellStarts[i] += cellStarts[i - 1];
+        }
+        cellStarts[cellsCount] = count;
+
+        // Scatter in reverse so that each cell end offset moves back to the cell start
+        final int[] cellPoints = mCellPoints;
+        for (int i = count - 1; i >= 0; i--) {
+            cellPoints[--cellStarts[pointCells[i]]] = i;
+        }
+    }
+
+    /**
+     * Rebuilds the grid with cells of maxDistance and finds the pairs.
+     *
+     * @see #build(float[], float[], int, float, float, float, float, float)
+     * @see #findPairs(float[], float[], int, float, PairCallback)
+     */
+    @Override
+    public void findPairs(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int count,
+            final float left,
+            final float top,
+            final float right,
+            final float bottom,
+            final float maxDistance,
+            @NonNull final PairCallback callback) {
+        build(x, y, count, left, top, right, bottom, maxDistance);
+        findPairs(x, y, count, maxDistance, callback);
+    }
+
+    /**
+     * Finds all point pairs closer than maxDistance. Every pair is reported exactly once.
+     * Must be called after {@link #build(float[], float[], int, float, float, float, float, float)}
+     * with the same points and maxDistance not greater than the cell size used for building.
+     *
+     * @param x           the x coordinates of points the grid was built for
+     * @param y           the y coordinates of points the grid was built for
+     * @param count       the number of points the grid was built for
+     * @param maxDistance the exclusive maximum distance between points of a pair
+     * @param callback    the callback to report pairs to
+     */
+    void findPairs(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int count,
+            final float maxDistance,
+            @NonNull final PairCallback callback) {
+        if (count != mPointsCount) {
+            throw new IllegalStateException("The grid was built for a different set of points");
+        }
+        mPairsTested = findPairs(x, y, maxDistance, callback, 0, mRows);
+    }
+
+    /**
+     * Same as {@link #findPairs(float[], float[], int, float, PairCallback)}, but only finds the
+     * pairs whose first point is in a stripe of rows. Stripes read the grid without modifying
+     * it, so different stripes may be searched concurrently, and pairs of adjacent stripes are
+     * reported in the same order as by a single call for all rows.
+     *
+     * @param x           the x coordinates of points the grid was built for
+     * @param y           the y coordinates of points the grid was built for
+     * @param maxDistance the exclusive maximum distance between points of a pair
+     * @param callback    the callback to report pairs to
+     * @param rowFrom     the first row of the stripe
+     * @param rowTo       the row after the last row of the stripe
+     * @return the number of pairs whose distance was calculated
+     */
+    int findPairs(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final float maxDistance,
+            @NonNull final PairCallback callback,
+            final int rowFrom,
+            final int rowTo) {
+        final int[] cellStarts = mCellStarts;
+        final int[] cellPoints = mCellPoints;
+        int pairsTested = 0;
+        for (int row = rowFrom; row < rowTo; row++) {
+            for (int column = 0; column < mColumns; column++) {
+                final int cell = row * mColumns + column;
+                final int start = cellStarts[cell];
+                final int end = cellStarts[cell + 1];
+                for (int i = start; i < end; i++) {
+                    final int p1 = cellPoints[i];
+
+                    // Remaining points of the same cell
+                    for (int c = i + 1; c < end; c++) {
+                        testPair(x, y, p1, cellPoints[c], maxDistance, callback);
+                    }
+                    pairsTested += end - i - 1;
+
+                    // Half of the neighbour cells, so that each pair is tested once
+                    if (column + 1 < mColumns) {
+                        pairsTested += testCell(x, y, p1, cell + 1, maxDistance, callback);
+                    }
+                    if (row + 1 < mRows) {
+                        final int below = cell + mColumns;
+                        if (column > 0) {
+                            pairsTested += testCell(x, y, p1, below - 1, maxDistance, callback);
+                        }
+                        pairsTested += testCell(x, y, p1, below, maxDistance, callback);
+                        if (column + 1 < mColumns) {
+                            pairsTested += testCell(x, y, p1, below + 1, maxDistance, callback);
+                        }
+                    }
+                }
+            }
+        }
+        return pairsTested;
+    }
+
+    /**
+     * Returns the number of rows of the latest build.
+     *
+     * @return the number of rows
+     */
+    int getRows() {
+        return mRows;
+    }
+
+    /**
+     * Tests the point against every point of the cell.
+     *
+     * @return the number of tested pairs
+     */
+    private int testCell(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int p1,
+            final int cell,
+            final float maxDistance,
+            @NonNull final PairCallback callback) {
+        final int start = mCellStarts[cell];
+        final int end = mCellStarts[cell + 1];
+        for (int i = start; i < end; i++) {
+            testPair(x, y, p1, mCellPoints[i], maxDistance, callback);
+        }
+        return end - start;
+    }
+
+    /**
+     * Returns the number of pairs whose distance was calculated by the latest
+     * {@link #findPairs(float[], float[], int, float, PairCallback)} call.
+     *
+     * @return the number of tested pairs
+     */
+    @Override
+    public int getPairsTested() {
+        return mPairsTested;
+    }
+
+    private static void testPair(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int p1,
+            final int p2,
+            final float maxDistance,
+            @NonNull final PairCallback callback) {
+        final float distance = distance(x[p1], y[p1], x[p2], y[p2]);
+        if (distance < maxDistance) {
+            callback.onPair(p1, p2, distance);
+        }
+    }
+
+    private int column(final float x) {
+        return clamp((int) ((x - mOriginX) / mCellSize), mColumns);
+    }
+
+    private int row(final float y) {
+        return clamp((int) ((y - mOriginY) / mCellSize), mRows);
+    }
+
+    /**
+     * Clamps cell coordinate. Points outside of the grid area fall into the border cells, which
+     * only brings them closer to their neighbours, so no pairs are lost.
+     */
+    private static int clamp(final int value, final int count) {
+        return value < 0 ? 0 : value >= count ? count - 1 : value;
+    }
+
+    /**
+     * Calculates the distance between two points
+     *
+     * @return distance between two points
+     */
+    static float distance(final float ax, final float ay,
+            final float bx, final float by) {
+        return (float) Math.sqrt(
+                (ax - bx) * (ax - bx) +
+                        (ay - by) * (ay - by)
+        );
+    }
+}
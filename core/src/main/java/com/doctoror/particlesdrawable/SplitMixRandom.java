@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.IntRange;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SplitMix64 generator. Unlike {@link java.util.Random} it has no atomic seed updates, and
+ * bounded values are made with a multiply and shift instead of division.
+ */
+final class SplitMixRandom implements ParticlesRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Makes default seeds of instances created within the same nanosecond differ
+     */
+    private static final AtomicLong sSeedUniquifier = new AtomicLong();
+
+    private long mState;
+
+    /**
+     * Creates the generator with a seed that is very likely to be different from any other
+     * invocation of this constructor.
+     */
+    SplitMixRandom() {
+        this(sSeedUniquifier.addAndGet(GOLDEN_GAMMA) ^ System.nanoTime());
+    }
+
+    SplitMixRandom(final long seed) {
+        mState = seed;
+    }
+
+    @Override
+    public void setSeed(final long seed) {
+        mState = seed;
+    }
+
+    @Override
+    public long getState() {
+        return mState;
+    }
+
+    @Override
+    public void setState(final long state) {
+        mState = state;
+    }
+
+    @Override
+    public int nextInt(@IntRange(from = 1) final int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        // Lemire's method: the high 32 bits of a 32 x 32 bit product are uniform in [0, bound)
+        // once products with the low bits below the threshold are rejected
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xFFFFFFFFL;
+        if (low < bound) {
+            final long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    private long nextLong() {
+        long z = (mState += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
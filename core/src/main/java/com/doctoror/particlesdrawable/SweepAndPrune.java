@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Sweep and prune pair search along the x axis. Points are kept sorted by x, and every point is
+ * tested against the following points until they are farther than the maximum distance along x.
+ *
+ * The order of the previous call is updated with an insertion sort, which is near-linear when
+ * points barely move between calls. When the order changed too much, like after the points
+ * were placed anew, it is sorted with a merge sort instead. No allocations are made once the
+ * arrays have grown to fit the scene.
+ */
+final class SweepAndPrune implements PairSearch {
+
+    /**
+     * Number of element moves per point after which the insertion sort gives up in favor of
+     * the merge sort
+     */
+    private static final int MAX_INSERTION_MOVES_PER_POINT = 8;
+
+    /**
+     * Point indices sorted by x
+     */
+    private int[] mOrder = new int[0];
+
+    /**
+     * The x of every point of {@link #mOrder}
+     */
+    private float[] mSortedX = new float[0];
+
+    /**
+     * Merge sort buffers
+     */
+    private int[] mOrderBuffer = new int[0];
+    private float[] mSortedXBuffer = new float[0];
+
+    private int mPointsCount;
+
+    private int mPairsTested;
+
+    /**
+     * {@inheritDoc}
+     *
+     * The area is not used, points may be anywhere.
+     */
+    @Override
+    public void findPairs(@NonNull final float[] x,
+            @NonNull final float[] y,
+            final int count,
+            final float left,
+            final float top,
+            final float right,
+            final float bottom,
+            final float maxDistance,
+            @NonNull final SpatialGrid.PairCallback callback) {
+        updateOrder(x, count);
+        if (!insertionSort(count)) {
+            mergeSort(count);
+        }
+
+        final int[] order = mOrder;
+        final float[] sortedX = mSortedX;
+        int pairsTested = 0;
+        for (int i = 0; i < count; i++) {
+            final int p1 = order[i];
+            final float maxX = sortedX[i] + maxDistance;
+            for (int c = i + 1; c < count && sortedX[c] < maxX; c++) {
+                final int p2 = order[c];
+                pairsTested++;
+                final float distance = SpatialGrid.distance(x[p1], y[p1], x[p2], y[p2]);
+                if (distance < maxDistance) {
+                    callback.onPair(p1, p2, distance);
+                }
+            }
+        }
+        mPairsTested = pairsTested;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getPairsTested() {
+        return mPairsTested;
+    }
+
+    /**
+     * Brings the order of the previous call to the new count, keeping the relative order of the
+     * remaining points and appending the new ones, and refreshes the sort keys.
+     */
+    private void updateOrder(@NonNull final float[] x, final int count) {
+        if (mOrder.length < count) {
+            final int capacity = Math.max(count, x.length);
+            final int[] order = new int[capacity];
+            System.arraycopy(mOrder, 0, order, 0, mPointsCount);
+            mOrder = order;
+            mSortedX = new float[capacity];
+            mOrderBuffer = new int[capacity];
+            mSortedXBuffer = new float[capacity];
+        }
+
+        final int[] order = mOrder;
+        if (count < mPointsCount) {
+            int size = 0;
+            for (int i = 0; i < mPointsCount; i++) {
+                if (order[i] < count) {
+                    order[size++] = order[i];
+                }
+            }
+        } else {
+            for (int i = mPointsCount; i < count; i++) {
+                order[i] = i;
+            }
+        }
+        mPointsCount = count;
+
+        final float[] sortedX = mSortedX;
+        for (int i = 0; i < count; i++) {
+            sortedX[i] = x[order[i]];
+        }
+    }
+
+    /**
+     * Sorts by insertion unless it takes too many moves.
+     *
+     * @return false if the sort was abandoned, leaving the points unsorted
+     */
+    private boolean insertionSort(final int count) {
+        final int[] order = mOrder;
+        final float[] sortedX = mSortedX;
+        final long maxMoves = (long) count * MAX_INSERTION_MOVES_PER_POINT;
+        long moves = 0;
+        for (int i = 1; i < count; i++) {
+            final float key = sortedX[i];
+            if (sortedX[i - 1] <= key) {
+                continue;
+            }
+            final int index = order[i];
+            int c = i - 1;
+            while (c >= 0 && sortedX[c] > key) {
+                sortedX[c + 1] = sortedX[c];
+                order[c + 1] = order[c];
+                c--;
+            }
+            sortedX[c + 1] = key;
+            order[c + 1] = index;
+
+            moves += i - 1 - c;
+            if (moves > maxMoves) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Bottom-up merge sort of {@link #mSortedX} and {@link #mOrder}
+     */
+    private void mergeSort(final int count) {
+        int[] order = mOrder;
+        float[] sortedX = mSortedX;
+        int[] orderBuffer = mOrderBuffer;
+        float[] sortedXBuffer = mSortedXBuffer;
+        for (int width = 1; width < count; width *= 2) {
+            for (int start = 0; start < count; start += width * 2) {
+                final int middle = Math.min(start + width, count);
+                final int end = Math.min(start + width * 2, count);
+                int l = start;
+                int r = middle;
+                for (int i = start; i < end; i++) {
+                    if (l < middle && (r == end || sortedX[l] <= sortedX[r])) {
+                        sortedXBuffer[i] = sortedX[l];
+                        orderBuffer[i] = order[l++];
+                    } else {
+                        sortedXBuffer[i] = sortedX[r];
+                        orderBuffer[i] = order[r++];
+                    }
+                }
+            }
+
+            final int[] swapOrder = order;
+            order = orderBuffer;
+            orderBuffer = swapOrder;
+
+            final float[] swapSortedX = sortedX;
+            sortedX = sortedXBuffer;
+            sortedXBuffer = swapSortedX;
+        }
+        mOrder = order;
+        mSortedX = sortedX;
+        mOrderBuffer = orderBuffer;
+        mSortedXBuffer = sortedXBuffer;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+/**
+ * Table based sine and cosine of whole degrees, for the respawn path where directions are whole
+ * degrees anyway.
+ */
+final class Trig {
+
+    private static final float[] SIN = new float[360];
+    private static final float[] COS = new float[360];
+
+    static {
+        for (int i = 0; i < 360; i++) {
+            final double radians = Math.toRadians(i);
+            SIN[i] = (float) Math.sin(radians);
+            COS[i] = (float) Math.cos(radians);
+        }
+    }
+
+    private Trig() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @param degrees the angle in whole degrees, must not be negative
+     * @return the sine of the angle
+     */
+    static float sin(final int degrees) {
+        return SIN[degrees % 360];
+    }
+
+    /**
+     * @param degrees the angle in whole degrees, must not be negative
+     * @return the cosine of the angle
+     */
+    static float cos(final int degrees) {
+        return COS[degrees % 360];
+    }
+}
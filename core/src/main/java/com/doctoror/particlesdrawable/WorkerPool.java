@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.IntRange;
+import android.support.annotation.NonNull;
+
+/**
+ * Fixed pool of worker threads that runs the parts of a {@link Task} in parallel with the
+ * calling thread. The calling thread takes part in the work, so a pool of parallelism N starts
+ * N - 1 threads.
+ *
+ * Parts are claimed dynamically, so a part that takes longer does not leave the other threads
+ * idle. Running a task does not allocate, and tasks are run one at a time.
+ */
+final class WorkerPool {
+
+    /**
+     * Maps to {@code Process.THREAD_PRIORITY_DISPLAY} on Android
+     */
+    private static final int PRIORITY_DISPLAY = Thread.NORM_PRIORITY + 2;
+
+    interface Task {
+
+        /**
+         * Runs a part of the task. Parts of the same task may run concurrently.
+         *
+         * @param part the index of the part, from zero to the number of parts exclusive
+         */
+        void run(int part);
+    }
+
+    /**
+     * Serializes {@link #run(Task, int)} and {@link #shutdown()} calls
+     */
+    private final Object mRunLock = new Object();
+
+    /**
+     * Guards the fields below and is waited on by the workers and the calling thread
+     */
+    private final Object mLock = new Object();
+
+    private final Worker[] mWorkers;
+
+    private Task mTask;
+    private int mParts;
+    private int mNextPart;
+    private int mPendingParts;
+    private int mGeneration;
+    private boolean mShutdown;
+
+    private Throwable mFailure;
+
+    /**
+     * @param parallelism the number of threads running a task, including the calling thread
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    WorkerPool(@IntRange(from = 1) final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        mWorkers = new Worker[parallelism - 1];
+        for (int i = 0; i < mWorkers.length; i++) {
+            final Worker worker = new Worker(i);
+            mWorkers[i] = worker;
+            worker.start();
+        }
+    }
+
+    /**
+     * Returns the number of threads running a task, including the calling thread.
+     *
+     * @return the number of threads running a task
+     */
+    int getParallelism() {
+        return mWorkers.length + 1;
+    }
+
+    /**
+     * Runs all parts of the task and returns when they are done. If a part throws, the rest of
+     * the parts are still run and the first failure is rethrown.
+     *
+     * @param task  the task to run
+     * @param parts the number of parts
+     * @throws IllegalStateException if the pool is shut down
+     */
+    void run(@NonNull final Task task, final int parts) {
+        synchronized (mRunLock) {
+            synchronized (mLock) {
+                if (mShutdown) {
+                    throw new IllegalStateException("The pool is shut down");
+                }
+                mTask = task;
+                mParts = parts;
+                mNextPart = 0;
+                mPendingParts = parts;
+                mFailure = null;
+                mGeneration++;
+                mLock.notifyAll();
+            }
+
+            runParts(task);
+
+            final Throwable failure;
+            synchronized (mLock) {
+                boolean interrupted = false;
+                while (mPendingParts != 0) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        // The workers are not interruptible, so the parts must be waited for
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                failure = mFailure;
+                mTask = null;
+                mFailure = null;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads. Waits for the task being run to finish, but not for the threads
+     * to exit.
+     */
+    void shutdown() {
+        synchronized (mRunLock) {
+            synchronized (mLock) {
+                mShutdown = true;
+                mLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Claims and runs parts of the task until none are left.
+     */
+    private void runParts(@NonNull final Task task) {
+        while (true) {
+            final int part;
+            synchronized (mLock) {
+                if (mTask != task || mNextPart == mParts) {
+                    return;
+                }
+                part = mNextPart++;
+            }
+            Throwable failure = null;
+            try {
+                task.run(part);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            synchronized (mLock) {
+                if (failure != null && mFailure == null) {
+                    mFailure = failure;
+                }
+                if (--mPendingParts == 0) {
+                    mLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        Worker(final int index) {
+            super("ParticlesWorker-" + index);
+            setDaemon(true);
+            setPriority(PRIORITY_DISPLAY);
+        }
+
+        @Override
+        public void run() {
+            int generation = 0;
+            while (true) {
+                final Task task;
+                synchronized (mLock) {
+                    while (!mShutdown && (mGeneration == generation || mTask == null)) {
+                        try {
+                            mLock.wait();
+                        } catch (InterruptedException e) {
+                            // Only shutdown() stops the worker
+                        }
+                    }
+                    if (mShutdown) {
+                        return;
+                    }
+                    generation = mGeneration;
+                    task = mTask;
+                }
+                runParts(task);
+            }
+        }
+    }
+}
@@ -15,15 +15,15 @@
  */
 package com.doctoror.particlesdrawable;
 
-import android.support.annotation.ColorInt;
-
 /**
- * Particles View
+ * Test-related configuration
  */
-interface IParticlesView {
+final class Config {
+
+    static final double ASSERT_DELTA = 0.0000001;
 
-    void drawLine(float startX, float startY, float stopX, float stopY, float strokeWidth,
-            @ColorInt int color);
+    private Config() {
+        throw new UnsupportedOperationException();
+    }
 
-    void fillCircle(float cx, float cy, float radius, @ColorInt int color);
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link FrameCostHistogram} test
+ */
+public final class FrameCostHistogramTest {
+
+    private static final long MILLI = 1000000L;
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0L, new FrameCostHistogram().getPercentile(0.5f));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final FrameCostHistogram histogram = new FrameCostHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * MILLI / 10);
+        }
+        assertEquals(MILLI / 10, histogram.getPercentile(0f));
+        assertEquals(5 * MILLI, histogram.getPercentile(0.5f));
+        assertEquals(9 * MILLI, histogram.getPercentile(0.9f));
+        assertEquals(10 * MILLI, histogram.getPercentile(1f));
+    }
+
+    @Test
+    public void testRoundsUpToBucket() {
+        final FrameCostHistogram histogram = new FrameCostHistogram();
+        histogram.record(FrameCostHistogram.BUCKET_NANOS + 1);
+        assertEquals(FrameCostHistogram.BUCKET_NANOS * 2, histogram.getPercentile(1f));
+    }
+
+    @Test
+    public void testClampsToMax() {
+        final FrameCostHistogram histogram = new FrameCostHistogram();
+        histogram.record(FrameCostHistogram.MAX_NANOS * 10);
+        assertEquals(FrameCostHistogram.MAX_NANOS, histogram.getPercentile(1f));
+    }
+
+    @Test
+    public void testForgetsFramesOutsideOfWindow() {
+        final FrameCostHistogram histogram = new FrameCostHistogram();
+        histogram.record(40 * MILLI);
+        for (int i = 0; i < FrameCostHistogram.WINDOW_SIZE; i++) {
+            histogram.record(MILLI);
+        }
+        assertEquals(MILLI, histogram.getPercentile(1f));
+    }
+
+    @Test
+    public void testClear() {
+        final FrameCostHistogram histogram = new FrameCostHistogram();
+        histogram.record(MILLI);
+        histogram.clear();
+        assertEquals(0L, histogram.getPercentile(1f));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new FrameCostHistogram().getPercentile(1.5f);
+    }
+}
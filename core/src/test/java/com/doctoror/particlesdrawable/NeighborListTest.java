@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link NeighborList} test
+ */
+public final class NeighborListTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final float LINE_DISTANCE = 86f;
+    private static final float SKIN = 20f;
+
+    @NonNull
+    private static ParticleArrays randomPoints(@NonNull final Random random, final int count) {
+        final ParticleArrays points = new ParticleArrays(count);
+        for (int i = 0; i < count; i++) {
+            final int p = points.add();
+            points.x[p] = random.nextFloat() * WIDTH;
+            points.y[p] = random.nextFloat() * HEIGHT;
+        }
+        return points;
+    }
+
+    @NonNull
+    private static Set<String> bruteForcePairs(@NonNull final ParticleArrays points) {
+        final Set<String> result = new HashSet<String>();
+        for (int i = 0; i < points.size(); i++) {
+            for (int c = i + 1; c < points.size(); c++) {
+                if (SpatialGrid.distance(points.x[i], points.y[i], points.x[c], points.y[c])
+                        < LINE_DISTANCE) {
+                    result.add(key(i, c));
+                }
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    private static Set<String> listPairs(@NonNull final NeighborList list,
+            @NonNull final ParticleArrays points) {
+        final Set<String> result = new HashSet<String>();
+        list.findPairs(points.x, points.y, points.size(), 0, 0, WIDTH, HEIGHT,
+                LINE_DISTANCE, SKIN, new SpatialGrid.PairCallback() {
+
+                    @Override
+                    public void onPair(final int index1, final int index2,
+                            final float distance) {
+                        assertTrue("Pair reported twice", result.add(key(index1, index2)));
+                    }
+                });
+        return result;
+    }
+
+    @NonNull
+    private static String key(final int i1, final int i2) {
+        return Math.min(i1, i2) + ":" + Math.max(i1, i2);
+    }
+
+    private static void move(@NonNull final ParticleArrays points, final float step) {
+        for (int i = 0; i < points.size(); i++) {
+            // Every point moves in its own direction
+            points.x[i] += step * (i % 3 - 1);
+            points.y[i] += step * ((i / 3) % 3 - 1);
+        }
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceWhileMoving() {
+        final Random random = new Random(1);
+        final ParticleArrays points = randomPoints(random, 400);
+        final NeighborList list = new NeighborList(new SpatialGrid());
+        for (int frame = 0; frame < 100; frame++) {
+            assertEquals(bruteForcePairs(points), listPairs(list, points));
+            move(points, 1f);
+        }
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceWhileMovingWithSweepAndPrune() {
+        final Random random = new Random(7);
+        final ParticleArrays points = randomPoints(random, 400);
+        final NeighborList list = new NeighborList(new SweepAndPrune());
+        for (int frame = 0; frame < 100; frame++) {
+            assertEquals(bruteForcePairs(points), listPairs(list, points));
+            move(points, 1f);
+        }
+    }
+
+    @Test
+    public void testReusedWhileDisplacementWithinHalfSkin() {
+        final ParticleArrays points = randomPoints(new Random(2), 400);
+        final NeighborList list = new NeighborList(new SpatialGrid());
+        listPairs(list, points);
+        assertEquals(1, list.getBuildsCount());
+
+        // Diagonal moves make sqrt(2) per frame, so 7 frames stay within the half skin of 10
+        for (int frame = 0; frame < 7; frame++) {
+            move(points, 1f);
+            listPairs(list, points);
+        }
+        assertEquals(1, list.getBuildsCount());
+    }
+
+    @Test
+    public void testRebuiltWhenMostPointsMovedTooFar() {
+        final ParticleArrays points = randomPoints(new Random(3), 400);
+        final NeighborList list = new NeighborList(new SpatialGrid());
+        listPairs(list, points);
+        move(points, SKIN);
+        assertEquals(bruteForcePairs(points), listPairs(list, points));
+        assertEquals(2, list.getBuildsCount());
+    }
+
+    @Test
+    public void testJumpedPointsFoundWithoutRebuild() {
+        final Random random = new Random(4);
+        final ParticleArrays points = randomPoints(random, 400);
+        final NeighborList list = new NeighborList(new SpatialGrid());
+        listPairs(list, points);
+
+        // Respawn-like jumps of a few points
+        for (int i = 0; i < 3; i++) {
+            points.x[i * 100] = random.nextFloat() * WIDTH;
+            points.y[i * 100] = random.nextFloat() * HEIGHT;
+        }
+        points.x[1] = points.x[0] + 1f;
+        points.y[1] = points.y[0];
+
+        assertEquals(bruteForcePairs(points), listPairs(list, points));
+        assertEquals(1, list.getBuildsCount());
+    }
+
+    @Test
+    public void testRebuiltWhenCountChanges() {
+        final ParticleArrays points = randomPoints(new Random(5), 400);
+        final NeighborList list = new NeighborList(new SpatialGrid());
+        listPairs(list, points);
+        points.truncate(200);
+        assertEquals(bruteForcePairs(points), listPairs(list, points));
+        assertEquals(2, list.getBuildsCount());
+    }
+
+    @Test
+    public void testTestsFewerPairsThanGridWhenReused() {
+        final ParticleArrays points = randomPoints(new Random(6), 2000);
+        final NeighborList list = new NeighborList(new SpatialGrid());
+        listPairs(list, points);
+        move(points, 1f);
+        listPairs(list, points);
+
+        final SpatialGrid grid = new SpatialGrid();
+        grid.build(points.x, points.y, points.size(), 0, 0, WIDTH, HEIGHT, LINE_DISTANCE);
+        grid.findPairs(points.x, points.y, points.size(), LINE_DISTANCE,
+                new SpatialGrid.PairCallback() {
+
+                    @Override
+                    public void onPair(final int index1, final int index2,
+                            final float distance) {
+                    }
+                });
+        assertTrue(list.getPairsTested() < grid.getPairsTested());
+    }
+}
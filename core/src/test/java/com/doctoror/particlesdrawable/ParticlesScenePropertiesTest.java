@@ -86,52 +86,93 @@ public final class ParticlesScenePropertiesTest {
     public void testAddTwoPoints() {
         final ParticlesSceneProperties scene = new ParticlesSceneProperties();
 
-        final Particle p1 = new Particle();
-        final Particle p2 = new Particle();
+        final int p1 = scene.addPoint();
+        scene.getMutablePoints().x[p1] = 1f;
 
-        scene.addPoint(p1);
-        scene.addPoint(p2);
+        final int p2 = scene.addPoint();
+        scene.getMutablePoints().x[p2] = 2f;
 
-        assertFalse(scene.getMutablePoints().isEmpty());
+        assertEquals(2, scene.getMutablePoints().size());
+        assertEquals(1f, scene.getMutablePoints().x[p1], Config.ASSERT_DELTA);
+        assertEquals(2f, scene.getMutablePoints().x[p2], Config.ASSERT_DELTA);
+    }
+
+    @Test
+    public void testAddPointsBeyondCapacity() {
+        final ParticlesSceneProperties scene = new ParticlesSceneProperties();
+        final int count = scene.getMutablePoints().capacity() + 1;
+        for (int i = 0; i < count; i++) {
+            final int p = scene.addPoint();
+            scene.getMutablePoints().y[p] = i;
+        }
 
-        assertTrue(scene.getMutablePoints().contains(p1));
-        assertTrue(scene.getMutablePoints().contains(p2));
+        assertEquals(count, scene.getMutablePoints().size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, scene.getMutablePoints().y[i], Config.ASSERT_DELTA);
+        }
     }
 
     @Test
-    public void testRemoveFirstPointWhenEmpty() {
-        new ParticlesSceneProperties().removeFirstPoint();
+    public void testTruncatePointsWhenEmpty() {
+        final ParticlesSceneProperties scene = new ParticlesSceneProperties();
+        scene.truncatePoints(0);
+        assertTrue(scene.getMutablePoints().isEmpty());
     }
 
     @Test
-    public void testRemoveFirstPointWithTwoPoints() {
+    public void testTruncatePointsKeepsFirstPoints() {
         final ParticlesSceneProperties scene = new ParticlesSceneProperties();
 
-        final Particle p1 = new Particle();
-        final Particle p2 = new Particle();
+        final int p1 = scene.addPoint();
+        scene.getMutablePoints().x[p1] = 1f;
 
-        scene.addPoint(p1);
-        scene.addPoint(p2);
+        final int p2 = scene.addPoint();
+        scene.getMutablePoints().x[p2] = 2f;
 
-        scene.removeFirstPoint();
+        scene.truncatePoints(1);
 
-        assertFalse(scene.getMutablePoints().contains(p1));
-        assertTrue(scene.getMutablePoints().contains(p2));
+        assertEquals(1, scene.getMutablePoints().size());
+        assertEquals(1f, scene.getMutablePoints().x[0], Config.ASSERT_DELTA);
 
-        scene.removeFirstPoint();
+        scene.truncatePoints(0);
 
-        assertFalse(scene.getMutablePoints().contains(p2));
+        assertTrue(scene.getMutablePoints().isEmpty());
     }
 
     @Test
-    public void testClearPointsWithTwoPoints() {
+    public void testTruncatePointsToLargerSize() {
         final ParticlesSceneProperties scene = new ParticlesSceneProperties();
+        scene.addPoint();
+        scene.truncatePoints(2);
+        assertEquals(1, scene.getMutablePoints().size());
+    }
 
-        final Particle p1 = new Particle();
-        final Particle p2 = new Particle();
+    @Test
+    public void testTruncatePointsRetainsCapacity() {
+        final ParticlesSceneProperties scene = new ParticlesSceneProperties();
+        final int capacity = scene.getMutablePoints().capacity();
+        for (int i = 0; i < capacity; i++) {
+            scene.addPoint();
+        }
+        scene.truncatePoints(0);
+        final float[] x = scene.getMutablePoints().x;
+        for (int i = 0; i < capacity; i++) {
+            scene.addPoint();
+        }
+        assertSame(x, scene.getMutablePoints().x);
+    }
 
-        scene.addPoint(p1);
-        scene.addPoint(p2);
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatePointsNegative() {
+        new ParticlesSceneProperties().truncatePoints(-1);
+    }
+
+    @Test
+    public void testClearPointsWithTwoPoints() {
+        final ParticlesSceneProperties scene = new ParticlesSceneProperties();
+
+        scene.addPoint();
+        scene.addPoint();
 
         scene.clearPoints();
         assertTrue(scene.getMutablePoints().isEmpty());
@@ -150,6 +191,19 @@ public final class ParticlesScenePropertiesTest {
         assertEquals(1, s.getFrameDelay());
     }
 
+    @SuppressWarnings("Range")
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetSimulationRateNegative() {
+        new ParticlesSceneProperties().setSimulationRate(-1);
+    }
+
+    @Test
+    public void testSetSimulationRate() {
+        final ParticlesSceneProperties s = new ParticlesSceneProperties();
+        s.setSimulationRate(30);
+        assertEquals(30, s.getSimulationRate());
+    }
+
     @SuppressWarnings("Range")
     @Test(expected = IllegalArgumentException.class)
     public void testStepMultiplierNegative() {
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link QualityGovernor} test
+ */
+public final class QualityGovernorTest {
+
+    private static final long BUDGET_NANOS = 8000000L;
+
+    private static boolean addFrames(final QualityGovernor governor, final int count,
+            final long nanos) {
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            changed |= governor.addFrameCost(nanos);
+        }
+        return changed;
+    }
+
+    @Test
+    public void testFullQualityByDefault() {
+        final QualityGovernor governor = new QualityGovernor();
+        assertEquals(OnQualityLevelChangeListener.QUALITY_FULL, governor.getLevel());
+        assertTrue(governor.isAntiAliasEnabled());
+        assertEquals(1f, governor.getDotsFraction(), Config.ASSERT_DELTA);
+        assertEquals(1f, governor.getLineDistanceFraction(), Config.ASSERT_DELTA);
+        assertEquals(1, governor.getFrameDelayMultiplier());
+    }
+
+    @Test
+    public void testNoChangeBeforeWindowIsFull() {
+        final QualityGovernor governor = new QualityGovernor();
+        assertFalse(addFrames(governor, QualityGovernor.WINDOW_SIZE - 1, BUDGET_NANOS * 10));
+        assertEquals(OnQualityLevelChangeListener.QUALITY_FULL, governor.getLevel());
+    }
+
+    @Test
+    public void testLowersLevelOncePerWindowOverBudget() {
+        final QualityGovernor governor = new QualityGovernor();
+        assertTrue(addFrames(governor, QualityGovernor.WINDOW_SIZE, BUDGET_NANOS + 1));
+        assertEquals(OnQualityLevelChangeListener.QUALITY_NO_ANTI_ALIAS, governor.getLevel());
+        assertFalse(governor.isAntiAliasEnabled());
+
+        addFrames(governor, QualityGovernor.WINDOW_SIZE, BUDGET_NANOS + 1);
+        assertEquals(OnQualityLevelChangeListener.QUALITY_REDUCED, governor.getLevel());
+        assertTrue(governor.getDotsFraction() < 1f);
+        assertTrue(governor.getLineDistanceFraction() < 1f);
+    }
+
+    @Test
+    public void testDoesNotGoBelowLowestLevel() {
+        final QualityGovernor governor = new QualityGovernor();
+        addFrames(governor, QualityGovernor.WINDOW_SIZE * 10, BUDGET_NANOS * 2);
+        assertEquals(OnQualityLevelChangeListener.QUALITY_LOW, governor.getLevel());
+        assertEquals(2, governor.getFrameDelayMultiplier());
+    }
+
+    @Test
+    public void testHysteresis() {
+        final QualityGovernor governor = new QualityGovernor();
+        addFrames(governor, QualityGovernor.WINDOW_SIZE, BUDGET_NANOS * 2);
+
+        // Under budget, but not enough to recover
+        assertFalse(addFrames(governor, QualityGovernor.WINDOW_SIZE * 3, BUDGET_NANOS * 3 / 4));
+        assertEquals(OnQualityLevelChangeListener.QUALITY_NO_ANTI_ALIAS, governor.getLevel());
+
+        assertTrue(addFrames(governor, QualityGovernor.WINDOW_SIZE, BUDGET_NANOS / 4));
+        assertEquals(OnQualityLevelChangeListener.QUALITY_FULL, governor.getLevel());
+    }
+
+    @Test
+    public void testReset() {
+        final QualityGovernor governor = new QualityGovernor();
+        addFrames(governor, QualityGovernor.WINDOW_SIZE, BUDGET_NANOS * 2);
+        governor.reset();
+        assertEquals(OnQualityLevelChangeListener.QUALITY_FULL, governor.getLevel());
+    }
+
+    @Test
+    public void testSetTargetFrameBudget() {
+        final QualityGovernor governor = new QualityGovernor();
+        governor.setTargetFrameBudget(16);
+        assertEquals(16, governor.getTargetFrameBudget());
+        assertFalse(addFrames(governor, QualityGovernor.WINDOW_SIZE, BUDGET_NANOS * 3 / 2));
+    }
+
+    @SuppressWarnings("Range")
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetTargetFrameBudgetZero() {
+        new QualityGovernor().setTargetFrameBudget(0);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RespawnAim} test
+ */
+public final class RespawnAimTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final float INSET = 18f;
+    private static final float OFFSET = 90f;
+
+    @Test
+    public void testEveryDirectionAimsBetweenCorners() {
+        final RespawnAim aim = new RespawnAim(INSET);
+        aim.rebuild(WIDTH, HEIGHT, OFFSET);
+        for (int edge = 0; edge < 4; edge++) {
+            final boolean vertical = edge == RespawnAim.EDGE_LEFT
+                    || edge == RespawnAim.EDGE_RIGHT;
+            final int length = vertical ? HEIGHT : WIDTH;
+            for (int position = 0; position < length; position++) {
+                final int start = aim.getStart(edge, position);
+                final int span = aim.getSpan(edge, position);
+                for (int direction = start; direction < start + span; direction++) {
+                    assertAimsBetweenCorners(edge, position, direction);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMiddleOfEdgeAimsAtWideRange() {
+        final RespawnAim aim = new RespawnAim(INSET);
+        aim.rebuild(WIDTH, HEIGHT, OFFSET);
+        // From 90 px away, the inset side of the scene spans well over 150 degrees
+        assertTrue(aim.getSpan(RespawnAim.EDGE_LEFT, HEIGHT / 2) > 150);
+        assertTrue(aim.getSpan(RespawnAim.EDGE_TOP, WIDTH / 2) > 150);
+    }
+
+    @Test
+    public void testValidity() {
+        final RespawnAim aim = new RespawnAim(INSET);
+        assertFalse(aim.isValidFor(WIDTH, HEIGHT, OFFSET));
+
+        aim.rebuild(WIDTH, HEIGHT, OFFSET);
+        assertTrue(aim.isValidFor(WIDTH, HEIGHT, OFFSET));
+        assertFalse(aim.isValidFor(WIDTH + 1, HEIGHT, OFFSET));
+        assertFalse(aim.isValidFor(WIDTH, HEIGHT + 1, OFFSET));
+        assertFalse(aim.isValidFor(WIDTH, HEIGHT, OFFSET + 1f));
+    }
+
+    /**
+     * Asserts that the direction from the point crosses the inset side of the scene that faces
+     * the edge
+     */
+    private static void assertAimsBetweenCorners(final int edge, final int position,
+            final int direction) {
+        final float dx = Trig.cos(direction);
+        final float dy = Trig.sin(direction);
+        final float crossing;
+        final float from;
+        final float to;
+        switch (edge) {
+            case RespawnAim.EDGE_LEFT:
+                assertTrue(dx > 0f);
+                crossing = position + dy * (INSET + OFFSET) / dx;
+                from = INSET;
+                to = HEIGHT - INSET;
+                break;
+
+            case RespawnAim.EDGE_TOP:
+                assertTrue(dy > 0f);
+                crossing = position + dx * (INSET + OFFSET) / dy;
+                from = INSET;
+                to = WIDTH - INSET;
+                break;
+
+            case RespawnAim.EDGE_RIGHT:
+                assertTrue(dx < 0f);
+                crossing = position + dy * (INSET + OFFSET) / -dx;
+                from = INSET;
+                to = HEIGHT - INSET;
+                break;
+
+            default:
+                assertTrue(dy < 0f);
+                crossing = position + dx * (INSET + OFFSET) / -dy;
+                from = INSET;
+                to = WIDTH - INSET;
+                break;
+        }
+        assertTrue("Edge " + edge + ", position " + position + ", direction " + direction,
+                crossing >= from - Config.ASSERT_DELTA && crossing <= to + Config.ASSERT_DELTA);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RespawnSchedule} test
+ */
+public final class RespawnScheduleTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final float PADDING = 90f;
+
+    /**
+     * Tolerance for float position accumulation
+     */
+    private static final float DELTA = 0.01f;
+
+    private static void place(@NonNull final Random random, @NonNull final ParticleArrays points,
+            final int i) {
+        final int direction = random.nextInt(360);
+        points.dCos[i] = Trig.cos(direction);
+        points.dSin[i] = Trig.sin(direction);
+        points.x[i] = random.nextFloat() * WIDTH;
+        points.y[i] = random.nextFloat() * HEIGHT;
+        points.stepMultiplier[i] = 0.5f + random.nextInt(11) * 0.1f;
+    }
+
+    @NonNull
+    private static ParticleArrays randomPoints(@NonNull final Random random, final int count) {
+        final ParticleArrays points = new ParticleArrays(count);
+        for (int i = 0; i < count; i++) {
+            place(random, points, points.add());
+        }
+        return points;
+    }
+
+    private static boolean outOfBounds(final float x, final float y, final float delta) {
+        return x + PADDING < -delta || x - PADDING > WIDTH + delta
+                || y + PADDING < -delta || y - PADDING > HEIGHT + delta;
+    }
+
+    @Test
+    public void testExitedPointsAreOutOfBoundsAndOthersAreNot() {
+        final Random random = new Random(1);
+        final ParticleArrays points = randomPoints(random, 300);
+        final RespawnSchedule schedule = new RespawnSchedule();
+        schedule.rebuild(points, WIDTH, HEIGHT, PADDING);
+
+        final boolean[] exited = new boolean[points.size()];
+        int exits = 0;
+        for (int step = 0; step < 2000; step++) {
+            final float sceneStep = 0.5f + random.nextFloat();
+            for (int i = 0; i < points.size(); i++) {
+                final float pointStep = sceneStep * points.stepMultiplier[i];
+                points.x[i] += pointStep * points.dCos[i];
+                points.y[i] += pointStep * points.dSin[i];
+            }
+            final double end = schedule.getTravelled() + sceneStep;
+
+            int index;
+            while ((index = schedule.peekExitedBefore(end)) != -1) {
+                assertFalse("Exited twice in a step", exited[index]);
+                assertTrue(outOfBounds(points.x[index], points.y[index], -DELTA));
+                exited[index] = true;
+                // Placed anew at the moment of the exit, then travels the rest of the step
+                final double exit = Math.max(schedule.getExit(index), schedule.getTravelled());
+                schedule.advanceTo(exit);
+                place(random, points, index);
+                schedule.rescheduleExited(points);
+                final float pointStep = (float) ((end - exit) * points.stepMultiplier[index]);
+                points.x[index] += pointStep * points.dCos[index];
+                points.y[index] += pointStep * points.dSin[index];
+                exits++;
+            }
+            schedule.advanceTo(end);
+            for (int i = 0; i < points.size(); i++) {
+                if (!exited[i]) {
+                    assertFalse(outOfBounds(points.x[i], points.y[i], DELTA));
+                }
+                exited[i] = false;
+            }
+        }
+        assertTrue(exits > 300);
+    }
+
+    @Test
+    public void testNothingExitsBeforeAdvancing() {
+        final ParticleArrays points = randomPoints(new Random(2), 100);
+        final RespawnSchedule schedule = new RespawnSchedule();
+        schedule.rebuild(points, WIDTH, HEIGHT, PADDING);
+        assertEquals(-1, schedule.peekExitedBefore(schedule.getTravelled()));
+    }
+
+    @Test
+    public void testPointOutOfBoundsExitsImmediately() {
+        final ParticleArrays points = new ParticleArrays(1);
+        points.add();
+        points.x[0] = -PADDING - 1f;
+        points.dCos[0] = 1f;
+        points.stepMultiplier[0] = 1f;
+
+        final RespawnSchedule schedule = new RespawnSchedule();
+        schedule.rebuild(points, WIDTH, HEIGHT, PADDING);
+        assertEquals(0, schedule.peekExitedBefore(schedule.getTravelled()));
+    }
+
+    @Test
+    public void testValidity() {
+        final ParticleArrays points = randomPoints(new Random(3), 10);
+        final RespawnSchedule schedule = new RespawnSchedule();
+        assertFalse(schedule.isValidFor(WIDTH, HEIGHT, PADDING, 10));
+
+        schedule.rebuild(points, WIDTH, HEIGHT, PADDING);
+        assertTrue(schedule.isValidFor(WIDTH, HEIGHT, PADDING, 10));
+        assertFalse(schedule.isValidFor(WIDTH + 1, HEIGHT, PADDING, 10));
+        assertFalse(schedule.isValidFor(WIDTH, HEIGHT, PADDING + 1f, 10));
+        assertFalse(schedule.isValidFor(WIDTH, HEIGHT, PADDING, 9));
+
+        schedule.invalidate();
+        assertFalse(schedule.isValidFor(WIDTH, HEIGHT, PADDING, 10));
+    }
+
+    @Test
+    public void testExitDistance() {
+        assertEquals(WIDTH + PADDING - 10f,
+                RespawnSchedule.exitDistance(10f, 10f, 1f, 0f, WIDTH, HEIGHT, PADDING),
+                Config.ASSERT_DELTA);
+        assertEquals(10f + PADDING,
+                RespawnSchedule.exitDistance(20f, 10f, 0f, -1f, WIDTH, HEIGHT, PADDING),
+                Config.ASSERT_DELTA);
+        assertEquals(Double.POSITIVE_INFINITY,
+                RespawnSchedule.exitDistance(20f, 10f, 0f, 0f, WIDTH, HEIGHT, PADDING),
+                Config.ASSERT_DELTA);
+        assertTrue(RespawnSchedule.exitDistance(-PADDING - 1f, 10f, 1f, 0f,
+                WIDTH, HEIGHT, PADDING) < 0);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Verifies that {@link SceneController} frames do not allocate once the scene reached steady
+ * state, so that animating never triggers garbage collection.
+ *
+ * Allocations are counted with {@link com.sun.management.ThreadMXBean}, and the test is skipped
+ * on VMs that do not support it.
+ */
+public final class SceneControllerAllocationTest {
+
+    /**
+     * Methods called once per frame are compiled late. Run alone on HotSpot, 2000 and 5000 frames
+     * of warmup left a one-off allocation in the measured frames, apparently made while such a
+     * method was being compiled: 64 bytes in QualityGovernor.addFrameCost(), the size of its
+     * interned exception message, and 312 bytes in java.lang.Math. 10000 frames did not.
+     */
+    private static final int WARMUP_FRAMES = 10000;
+    private static final int MEASURED_FRAMES = 5000;
+
+    private com.sun.management.ThreadMXBean mThreadMXBean;
+
+    @Before
+    public void setUp() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        mThreadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(mThreadMXBean.isThreadAllocatedMemorySupported());
+        mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void testFramesDoNotAllocate() {
+        assertFramesDoNotAllocate(newSceneController());
+    }
+
+    @Test
+    public void testFixedStepFramesDoNotAllocate() {
+        final SceneController c = newSceneController();
+        c.setSimulationRate(120);
+        assertFramesDoNotAllocate(c);
+    }
+
+    @Test
+    public void testAdaptiveQualityFramesDoNotAllocate() {
+        final SceneController c = newSceneController();
+        c.setAdaptiveQualityEnabled(true);
+        c.setTargetFrameBudget(1);
+        assertFramesDoNotAllocate(c);
+    }
+
+    @Test
+    public void testFramesWithStatsDoNotAllocate() {
+        final SceneController c = newSceneController();
+        c.setFrameStatsListener(new FrameStatsListener() {
+            @Override
+            public void onFrameStats(@NonNull final FrameStats stats) {
+                stats.getFrameCostPercentileNanos(0.99f);
+            }
+        });
+        assertFramesDoNotAllocate(c);
+    }
+
+    @Test
+    public void testResizingDoesNotAllocate() {
+        final SceneController c = newSceneController();
+        // Lets capacity grow and the JIT compile adding points, which frames do not do
+        for (int i = 0; i < 100; i++) {
+            c.setNumDots(5000);
+            c.setNumDots(0);
+        }
+        runFrames(c, WARMUP_FRAMES);
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = mThreadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100; i++) {
+            c.setNumDots(5000);
+            c.setNumDots(0);
+        }
+        final long allocated = mThreadMXBean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("Resizing allocated " + allocated + " bytes", allocated < 100);
+    }
+
+    @NonNull
+    private static SceneController newSceneController() {
+        final SceneController c = new SceneController(
+                new NoOpParticlesView(), new NoOpSceneScheduler(), new FrameClock(), 1f);
+        c.setNumDots(500);
+        c.setBounds(0, 0, 1080, 1920);
+        return c;
+    }
+
+    private void assertFramesDoNotAllocate(@NonNull final SceneController c) {
+        // Lets buffers grow to their steady state size and the JIT compile the frame path
+        runFrames(c, WARMUP_FRAMES);
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = mThreadMXBean.getThreadAllocatedBytes(threadId);
+        runFrames(c, MEASURED_FRAMES);
+        final long after = mThreadMXBean.getThreadAllocatedBytes(threadId);
+
+        // Reading the counter is not free either, measure it the same way
+        final long overhead = mThreadMXBean.getThreadAllocatedBytes(threadId)
+                - mThreadMXBean.getThreadAllocatedBytes(threadId);
+
+        assertEquals("Bytes allocated by " + MEASURED_FRAMES + " frames",
+                0L, after - before - overhead);
+    }
+
+    private static void runFrames(@NonNull final SceneController c, final int frames) {
+        for (int i = 0; i < frames; i++) {
+            c.nextFrame();
+            c.draw();
+        }
+    }
+
+    /**
+     * Advances by one 60 fps frame every time it is read
+     */
+    private static final class FrameClock implements Clock {
+
+        private long mTime;
+
+        @Override
+        public long uptimeMillis() {
+            mTime += 16L;
+            return mTime;
+        }
+    }
+
+    private static final class NoOpSceneScheduler implements SceneScheduler {
+
+        @Override
+        public void scheduleNextFrame(final long delay) {
+        }
+
+        @Override
+        public void unscheduleNextFrame() {
+        }
+
+        @Override
+        public void invalidate() {
+        }
+    }
+
+    private static final class NoOpParticlesView implements IParticlesView {
+
+        @Override
+        public void drawLine(final float startX, final float startY, final float stopX,
+                final float stopY, final float strokeWidth, @ColorInt final int color) {
+        }
+
+        @Override
+        public void fillCircle(final float cx, final float cy, final float radius,
+                @ColorInt final int color) {
+        }
+
+        @Override
+        public void drawLines(@NonNull final float[] points, @NonNull final int[] colors,
+                final int count, final float strokeWidth) {
+        }
+
+        @Override
+        public void fillCircles(@NonNull final float[] centers, @NonNull final float[] radiuses,
+                final int count, @ColorInt final int color) {
+        }
+
+        @Override
+        public void setAntiAlias(final boolean antiAlias) {
+        }
+    }
+}
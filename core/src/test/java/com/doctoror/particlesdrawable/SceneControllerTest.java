@@ -0,0 +1,800 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import static org.mockito.Mockito.*;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SceneController} test
+ */
+public final class SceneControllerTest {
+
+    /**
+     * The same time base as the default {@link SceneController} clock
+     */
+    private static final Clock CLOCK = new MonotonicClock();
+
+    @NonNull
+    private SceneController newSceneController() {
+        return new SceneController(mock(IParticlesView.class), mock(SceneScheduler.class));
+    }
+
+    @Test
+    public void testIsRunningByDefault() {
+        assertFalse(newSceneController().isRunning());
+    }
+
+    @Test
+    public void testIsRunningWhenStarted() {
+        final SceneController c = newSceneController();
+        c.setBounds(0, 0, 10, 10);
+        c.start();
+        try {
+            assertTrue(c.isRunning());
+        } finally {
+            c.stop();
+        }
+    }
+
+    @Test
+    public void testIsStopedWhenStopped() {
+        final SceneController c = newSceneController();
+        c.setBounds(0, 0, 10, 10);
+        c.start();
+        c.stop();
+        assertFalse(c.isRunning());
+    }
+
+    @Test
+    public void testSetBoundsWhenRunning() {
+        final SceneController c = newSceneController();
+        c.start();
+        c.setBounds(0, 0, 10, 10);
+        c.stop();
+    }
+
+    @Test
+    public void testWithZeroBounds() {
+        final SceneController c = newSceneController();
+        c.setBounds(0, 0, 0, 0);
+        c.start();
+        assertTrue(c.isRunning());
+        c.stop();
+        assertFalse(c.isRunning());
+    }
+
+    @Test
+    public void testRunWithFrameTimeSchedulesNextFrame() {
+        final SceneScheduler scheduler = mock(SceneScheduler.class);
+        final SceneController c = new SceneController(mock(IParticlesView.class), scheduler);
+        c.setBounds(0, 0, 10, 10);
+        c.start();
+        c.run(CLOCK.uptimeMillis() + 16L);
+        c.stop();
+
+        verify(scheduler, times(2)).scheduleNextFrame(anyLong());
+        verify(scheduler, times(2)).invalidate();
+    }
+
+    @Test
+    public void testRunWithFrameTimeWhenStopped() {
+        final SceneScheduler scheduler = mock(SceneScheduler.class);
+        final SceneController c = new SceneController(mock(IParticlesView.class), scheduler);
+        c.setBounds(0, 0, 10, 10);
+        c.run(CLOCK.uptimeMillis());
+
+        verify(scheduler, never()).scheduleNextFrame(anyLong());
+    }
+
+    @Test
+    public void testMakeBrandNewFrameWithZeroBounds() {
+        final SceneController c = newSceneController();
+        c.makeBrandNewFrame();
+    }
+
+    @Test
+    public void testMakeBrandNewFrame() {
+        final SceneController c = newSceneController();
+        c.setBounds(0, 0, 10, 10);
+        c.makeBrandNewFrame();
+    }
+
+    @Test
+    public void testMakeBrandNewFrameWhenRunning() {
+        final SceneController c = newSceneController();
+        c.setBounds(0, 0, 10, 10);
+        c.start();
+        c.makeBrandNewFrame();
+        c.stop();
+    }
+
+    @Test
+    public void testDotRadiusRangeThatRoundsUpToTheSameInt() throws Throwable {
+        final SceneController c = newSceneController();
+        c.setBounds(0, 0, 10, 10);
+        c.setDotRadiusRange(0.5f, 0.6f);
+        c.makeBrandNewFrame();
+    }
+
+    @Test
+    public void testSetFrameDelay() {
+        final SceneController s = newSceneController();
+        s.setFrameDelay(1);
+        assertEquals(1, s.getFrameDelay());
+    }
+
+    @Test
+    public void testSetSimulationRate() {
+        final SceneController s = newSceneController();
+        s.setSimulationRate(30);
+        assertEquals(30, s.getSimulationRate());
+    }
+
+    @Test
+    public void testFixedStepInterpolatesBetweenSteps() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = newSingleDotSceneController(view);
+
+        final long startTime = CLOCK.uptimeMillis();
+        c.run(startTime + 10L);
+        c.draw();
+        final float x1 = view.x;
+        final float y1 = view.y;
+
+        c.run(startTime + 20L);
+        c.draw();
+        final float x2 = view.x;
+        final float y2 = view.y;
+
+        c.run(startTime + 30L);
+        c.draw();
+        c.stop();
+
+        // Half a step is made between each pair of frames
+        assertTrue(x2 != x1 || y2 != y1);
+        assertEquals(x2 - x1, view.x - x2, 0.01f);
+        assertEquals(y2 - y1, view.y - y2, 0.01f);
+    }
+
+    @Test
+    public void testFixedStepCatchUpIsCapped() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = newSingleDotSceneController(view);
+
+        final long startTime = CLOCK.uptimeMillis();
+        c.run(startTime + 10L);
+        c.draw();
+        final float x1 = view.x;
+        final float y1 = view.y;
+
+        c.run(startTime + 20L);
+        c.draw();
+        final float stepX = (view.x - x1) * 2f;
+        final float stepY = (view.y - y1) * 2f;
+        final float x2 = view.x;
+        final float y2 = view.y;
+
+        // 50 steps are due, but only the capped number of steps is made
+        c.run(startTime + 1030L);
+        c.draw();
+        c.stop();
+
+        final float steps = SceneController.MAX_STEPS_PER_FRAME + 0.5f;
+        assertEquals(x2 + stepX * steps, view.x, 0.01f);
+        assertEquals(y2 + stepY * steps, view.y, 0.01f);
+    }
+
+    @Test
+    public void testBackgroundSimulationAdvancesDots() throws InterruptedException {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setNumDots(1);
+        c.setLineDistance(100f);
+        c.setBackgroundSimulationEnabled(true);
+        c.setBounds(0, 0, 1000, 1000);
+        c.start();
+        try {
+            c.draw();
+            assertEquals(1, view.count);
+            final float x = view.x;
+            final float y = view.y;
+
+            final long deadline = CLOCK.uptimeMillis() + 2000L;
+            while (view.x == x && view.y == y && CLOCK.uptimeMillis() < deadline) {
+                Thread.sleep(5L);
+                c.draw();
+            }
+            assertTrue(view.x != x || view.y != y);
+        } finally {
+            c.stop();
+        }
+    }
+
+    @Test
+    public void testBackgroundSimulationAppliesChangesBetweenSteps()
+            throws InterruptedException {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setNumDots(1);
+        c.setBackgroundSimulationEnabled(true);
+        c.setBounds(0, 0, 1000, 1000);
+        c.start();
+        try {
+            c.setNumDots(3);
+
+            final long deadline = CLOCK.uptimeMillis() + 2000L;
+            c.draw();
+            while (view.count != 3 && CLOCK.uptimeMillis() < deadline) {
+                Thread.sleep(5L);
+                c.draw();
+            }
+            assertEquals(3, view.count);
+        } finally {
+            c.stop();
+        }
+    }
+
+    @Test
+    public void testStopAppliesChangesMadeWhileSimulating() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setNumDots(1);
+        c.setBackgroundSimulationEnabled(true);
+        c.setBounds(0, 0, 1000, 1000);
+        c.start();
+        c.setNumDots(3);
+        c.stop();
+
+        c.draw();
+        assertEquals(3, view.count);
+    }
+
+    @Test
+    public void testStopAppliesStepSettingsMadeWhileSimulating() {
+        final SceneController c = new SceneController(
+                mock(IParticlesView.class), mock(SceneScheduler.class));
+        c.setBackgroundSimulationEnabled(true);
+        c.setBounds(0, 0, 1000, 1000);
+        c.start();
+        c.setStepMultiplier(2f);
+        c.setLineDistance(42f);
+        c.stop();
+
+        assertEquals(2f, c.getStepMultiplier(), 0f);
+        assertEquals(42f, c.getLineDistance(), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLineDistanceWhileSimulatingChecksArgument() {
+        final SceneController c = new SceneController(
+                mock(IParticlesView.class), mock(SceneScheduler.class));
+        c.setBackgroundSimulationEnabled(true);
+        c.setBounds(0, 0, 10, 10);
+        c.start();
+        try {
+            c.setLineDistance(-1f);
+        } finally {
+            c.stop();
+        }
+    }
+
+    @Test
+    public void testRunWithBackgroundSimulationSchedulesNextFrame() {
+        final SceneScheduler scheduler = mock(SceneScheduler.class);
+        final SceneController c = new SceneController(mock(IParticlesView.class), scheduler);
+        c.setBackgroundSimulationEnabled(true);
+        c.setBounds(0, 0, 10, 10);
+        c.start();
+        c.run(CLOCK.uptimeMillis() + 16L);
+        c.stop();
+
+        verify(scheduler, times(2)).scheduleNextFrame(anyLong());
+        verify(scheduler, times(2)).invalidate();
+    }
+
+    @Test
+    public void testSetBackgroundSimulationEnabled() {
+        final SceneController c = newSceneController();
+        c.setBackgroundSimulationEnabled(true);
+        assertTrue(c.isBackgroundSimulationEnabled());
+    }
+
+    @Test
+    public void testAdaptiveQualityLowersLevelOfSlowFrames() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        view.fillDelayMillis = 2L;
+
+        final OnQualityLevelChangeListener listener = mock(OnQualityLevelChangeListener.class);
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setAdaptiveQualityEnabled(true);
+        c.setTargetFrameBudget(1);
+        c.setOnQualityLevelChangeListener(listener);
+        c.setBounds(0, 0, 100, 100);
+
+        for (int i = 0; i < QualityGovernor.WINDOW_SIZE; i++) {
+            c.draw();
+        }
+        assertEquals(OnQualityLevelChangeListener.QUALITY_NO_ANTI_ALIAS, c.getQualityLevel());
+        verify(listener).onQualityLevelChanged(OnQualityLevelChangeListener.QUALITY_NO_ANTI_ALIAS);
+        assertFalse(view.antiAlias);
+
+        c.setAdaptiveQualityEnabled(false);
+        assertEquals(OnQualityLevelChangeListener.QUALITY_FULL, c.getQualityLevel());
+        verify(listener).onQualityLevelChanged(OnQualityLevelChangeListener.QUALITY_FULL);
+        assertTrue(view.antiAlias);
+    }
+
+    @Test
+    public void testAdaptiveQualitySetsAntiAliasOnlyWhenCrossingItsLevel() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        view.fillDelayMillis = 2L;
+
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setAdaptiveQualityEnabled(true);
+        c.setTargetFrameBudget(1);
+        c.setBounds(0, 0, 100, 100);
+
+        for (int i = 0; i < QualityGovernor.WINDOW_SIZE * 2; i++) {
+            c.draw();
+        }
+        assertEquals(OnQualityLevelChangeListener.QUALITY_REDUCED, c.getQualityLevel());
+        assertFalse(view.antiAlias);
+        assertEquals(1, view.antiAliasChanges);
+
+        c.setAdaptiveQualityEnabled(false);
+        assertTrue(view.antiAlias);
+        assertEquals(2, view.antiAliasChanges);
+    }
+
+    @Test
+    public void testFrameStats() {
+        final FrameStats[] reported = new FrameStats[1];
+        final SceneController c = newSceneController();
+        c.setFrameStatsListener(new FrameStatsListener() {
+
+            @Override
+            public void onFrameStats(@NonNull final FrameStats stats) {
+                reported[0] = stats;
+            }
+        });
+        c.setBounds(0, 0, 100, 100);
+        c.nextFrame();
+        c.draw();
+
+        final FrameStats stats = reported[0];
+        assertNotNull(stats);
+        assertEquals(c.getNumDots(), stats.getDotsDrawn());
+        assertTrue(stats.getLinesDrawn() > 0);
+        assertTrue(stats.getPairsTested() >= stats.getLinesDrawn());
+        assertTrue(stats.getSimulateDurationNanos() > 0L);
+        assertTrue(stats.getDrawDurationNanos() > 0L);
+        assertEquals(stats.getDrawDurationNanos() + stats.getSimulateDurationNanos(),
+                stats.getFrameCostNanos());
+        assertTrue(stats.getFrameCostPercentileNanos(1f) >= stats.getFrameCostNanos());
+
+        // Simulation time is reported once
+        c.draw();
+        assertEquals(0L, stats.getSimulateDurationNanos());
+    }
+
+    /**
+     * Makes a running controller with a single dot on a large scene, stepping 50 times per
+     * second, so that the dot can not leave the scene in a few steps
+     */
+    @NonNull
+    private static SceneController newSingleDotSceneController(
+            @NonNull final IParticlesView view) {
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setNumDots(1);
+        c.setLineDistance(100f);
+        c.setSimulationRate(50);
+        c.setBounds(0, 0, 1000, 1000);
+        c.start();
+        return c;
+    }
+
+    @Test
+    public void testSameSeedMakesSameFrames() {
+        assertEquals(drawSeededFrames(42L), drawSeededFrames(42L));
+    }
+
+    @Test
+    public void testDifferentSeedsMakeDifferentFrames() {
+        assertNotEquals(drawSeededFrames(1L), drawSeededFrames(2L));
+    }
+
+    @Test
+    public void testParallelFramesSameAsSequential() {
+        final int numDots = SceneController.MIN_POINTS_PER_PART * 8;
+        final long sequential = drawSeededFrames(7L, numDots, 1, 60);
+        assertEquals(sequential, drawSeededFrames(7L, numDots, 2, 60));
+        assertEquals(sequential, drawSeededFrames(7L, numDots, 4, 60));
+    }
+
+    @Test
+    public void testParallelFramesSameAsSequentialWithFixedSteps() {
+        final int numDots = SceneController.MIN_POINTS_PER_PART * 4;
+        final DotPositionRecorder sequentialView = new DotPositionRecorder();
+        final SceneController sequential = new SceneController(
+                sequentialView, mock(SceneScheduler.class));
+        sequential.setSimulationRate(120);
+
+        final DotPositionRecorder parallelView = new DotPositionRecorder();
+        final SceneController parallel = new SceneController(
+                parallelView, mock(SceneScheduler.class));
+        parallel.setSimulationRate(120);
+        parallel.setParallelism(3);
+
+        assertEquals(drawSeededFrames(sequential, sequentialView, 3L, numDots, 60),
+                drawSeededFrames(parallel, parallelView, 3L, numDots, 60));
+    }
+
+    @Test
+    public void testSetParallelism() {
+        final SceneController c = newSceneController();
+        assertEquals(Defaults.DEFAULT_PARALLELISM, c.getParallelism());
+        c.setParallelism(4);
+        assertEquals(4, c.getParallelism());
+    }
+
+    @Test
+    public void testSetParallelismWhileRunning() {
+        final SceneController c = newSceneController();
+        c.setBounds(0, 0, 1000, 1000);
+        c.setNumDots(SceneController.MIN_POINTS_PER_PART * 4);
+        c.start();
+        c.setParallelism(4);
+        c.nextFrame();
+        c.draw();
+        c.setParallelism(1);
+        c.nextFrame();
+        c.draw();
+        c.stop();
+        assertEquals(1, c.getParallelism());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetZeroParallelism() {
+        newSceneController().setParallelism(0);
+    }
+
+    @Test
+    public void testLinesCapacity() {
+        // A quarter of the bounds is within the line distance of a dot, 4950 pairs
+        final float lineDistance = (float) Math.sqrt(10000 / Math.PI);
+        assertEquals(2475f, SceneController.linesCapacity(100, lineDistance, 200, 200), 1f);
+    }
+
+    @Test
+    public void testLinesCapacityNotMoreThanPairs() {
+        assertEquals(45, SceneController.linesCapacity(10, 1000f, 100, 100));
+    }
+
+    @Test
+    public void testLinesCapacityWithZeroBounds() {
+        assertEquals(0, SceneController.linesCapacity(10, 100f, 0, 0));
+    }
+
+    @NonNull
+    private static SceneController newSeededSceneController(
+            @NonNull final DotPositionRecorder view) {
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setBounds(0, 0, 500, 500);
+        c.setNumDots(200);
+        c.setSeed(5L);
+        c.makeBrandNewFrame();
+        return c;
+    }
+
+    @NonNull
+    private static float[] seekAndDraw(@NonNull final SceneController c,
+            @NonNull final DotPositionRecorder view, final long timeMillis) {
+        c.seek(timeMillis);
+        c.draw();
+        return view.centers;
+    }
+
+    @Test
+    public void testSeekBackShowsSameFrame() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = newSeededSceneController(view);
+        final float[] expected = seekAndDraw(c, view, 30000L);
+        seekAndDraw(c, view, 90000L);
+        assertArrayEquals(expected, seekAndDraw(c, view, 30000L), 0f);
+    }
+
+    @Test
+    public void testSeekSameAsSeekingInSteps() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final float[] expected = seekAndDraw(newSeededSceneController(view), view, 60000L);
+
+        final SceneController c = newSeededSceneController(view);
+        for (long time = 5000L; time < 60000L; time += 5000L) {
+            c.seek(time);
+        }
+        assertArrayEquals(expected, seekAndDraw(c, view, 60000L), 0.01f);
+    }
+
+    @Test
+    public void testSeekCloseToSteppedFrames() {
+        final DotPositionRecorder steppedView = new DotPositionRecorder();
+        final SceneController stepped = newSeededSceneController(steppedView);
+        stepped.start();
+        final int frames = 3000;
+        for (int i = 1; i <= frames; i++) {
+            stepped.run(i * 16L);
+        }
+        stepped.stop();
+        stepped.draw();
+
+        // The first frame steps by 1, which is 20 ms, and every next one by 16 ms
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final float[] seeked = seekAndDraw(newSeededSceneController(view), view,
+                20L + (frames - 1) * 16L);
+
+        // Both stepping and seeking replace dots at the moment of their exit, so only rounding
+        // of the travel split into steps differs. Replacing at the end of the step would move
+        // dots by up to a whole step.
+        assertArrayEquals(steppedView.centers, seeked, 0.05f);
+    }
+
+    @Test
+    public void testSeekToZeroRestoresPlacedDots() {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = newSeededSceneController(view);
+        c.draw();
+        final float[] placed = view.centers;
+        seekAndDraw(c, view, 10000L);
+        assertArrayEquals(placed, seekAndDraw(c, view, 0L), 0f);
+    }
+
+    @Test
+    public void testSeekWithoutBoundsDoesNothing() {
+        newSceneController().seek(1000L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeekToNegativeTime() {
+        newSceneController().seek(-1L);
+    }
+
+    @Test
+    public void testSetNeighborListSkin() {
+        final SceneController c = newSceneController();
+        assertEquals(Defaults.DEFAULT_NEIGHBOR_LIST_SKIN, c.getNeighborListSkin(),
+                Config.ASSERT_DELTA);
+        c.setNeighborListSkin(12f);
+        assertEquals(12f, c.getNeighborListSkin(), Config.ASSERT_DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetNegativeNeighborListSkin() {
+        newSceneController().setNeighborListSkin(-1f);
+    }
+
+    @Test
+    public void testNeighborListDrawsSameNumberOfLines() {
+        assertArrayEquals(linesDrawnPerFrame(PairFinder.GRID, 0f),
+                linesDrawnPerFrame(PairFinder.GRID, 20f));
+    }
+
+    @Test
+    public void testSetPairFinder() {
+        final SceneController c = newSceneController();
+        assertEquals(Defaults.DEFAULT_PAIR_FINDER, c.getPairFinder());
+        c.setPairFinder(PairFinder.SWEEP_AND_PRUNE);
+        assertEquals(PairFinder.SWEEP_AND_PRUNE, c.getPairFinder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetUnknownPairFinder() {
+        newSceneController().setPairFinder(-1);
+    }
+
+    @Test
+    public void testSweepAndPruneDrawsSameNumberOfLines() {
+        final int[] expected = linesDrawnPerFrame(PairFinder.GRID, 0f);
+        assertArrayEquals(expected, linesDrawnPerFrame(PairFinder.SWEEP_AND_PRUNE, 0f));
+        assertArrayEquals(expected, linesDrawnPerFrame(PairFinder.SWEEP_AND_PRUNE, 20f));
+    }
+
+    @NonNull
+    private static int[] linesDrawnPerFrame(final int pairFinder, final float neighborListSkin) {
+        final int[] linesDrawn = new int[120];
+        final int[] frame = new int[1];
+        final SceneController c = new SceneController(
+                mock(IParticlesView.class), mock(SceneScheduler.class));
+        c.setPairFinder(pairFinder);
+        c.setNeighborListSkin(neighborListSkin);
+        c.setBounds(0, 0, 500, 500);
+        c.setNumDots(300);
+        c.setSeed(11L);
+        c.makeBrandNewFrame();
+        c.setFrameStatsListener(new FrameStatsListener() {
+
+            @Override
+            public void onFrameStats(@NonNull final FrameStats stats) {
+                linesDrawn[frame[0]] = stats.getLinesDrawn();
+            }
+        });
+        c.start();
+        for (; frame[0] < linesDrawn.length; frame[0]++) {
+            c.run(frame[0] * 16L + 16L);
+            c.draw();
+        }
+        c.stop();
+        return linesDrawn;
+    }
+
+    private static long drawSeededFrames(final long seed) {
+        return drawSeededFrames(seed, Defaults.DEFAULT_DOT_NUMBER, 1, 300);
+    }
+
+    private static long drawSeededFrames(
+            final long seed,
+            final int numDots,
+            final int parallelism,
+            final int frames) {
+        final DotPositionRecorder view = new DotPositionRecorder();
+        final SceneController c = new SceneController(view, mock(SceneScheduler.class));
+        c.setParallelism(parallelism);
+        return drawSeededFrames(c, view, seed, numDots, frames);
+    }
+
+    private static long drawSeededFrames(
+            @NonNull final SceneController c,
+            @NonNull final DotPositionRecorder view,
+            final long seed,
+            final int numDots,
+            final int frames) {
+        c.setBounds(0, 0, 500, 500);
+        c.setNumDots(numDots);
+        c.setSeed(seed);
+        c.makeBrandNewFrameWithPointsOffscreen();
+        c.start();
+        for (int i = 1; i <= frames; i++) {
+            c.run(i * 16L);
+            c.draw();
+        }
+        c.stop();
+        return view.hash;
+    }
+
+    private static final class DotPositionRecorder implements IParticlesView {
+
+        float x;
+        float y;
+        int count;
+
+        /**
+         * Hash of all drawn lines and dots
+         */
+        long hash;
+
+        /**
+         * Dot centers of the latest frame
+         */
+        float[] centers = new float[0];
+
+        boolean antiAlias = true;
+        int antiAliasChanges;
+        long fillDelayMillis;
+
+        @Override
+        public void drawLine(final float startX, final float startY, final float stopX,
+                final float stopY, final float strokeWidth, final int color) {
+        }
+
+        @Override
+        public void fillCircle(final float cx, final float cy, final float radius,
+                final int color) {
+        }
+
+        @Override
+        public void drawLines(@NonNull final float[] points, @NonNull final int[] colors,
+                final int count, final float strokeWidth) {
+            for (int i = 0; i < count * 4; i++) {
+                hash = hash * 31 + Float.floatToIntBits(points[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                hash = hash * 31 + colors[i];
+            }
+        }
+
+        @Override
+        public void fillCircles(@NonNull final float[] centers, @NonNull final float[] radiuses,
+                final int count, final int color) {
+            x = centers[0];
+            y = centers[1];
+            this.count = count;
+            this.centers = Arrays.copyOf(centers, count * 2);
+            for (int i = 0; i < count * 2; i++) {
+                hash = hash * 31 + Float.floatToIntBits(centers[i]);
+            }
+            if (fillDelayMillis != 0L) {
+                try {
+                    Thread.sleep(fillDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void setAntiAlias(final boolean antiAlias) {
+            this.antiAlias = antiAlias;
+            antiAliasChanges++;
+        }
+    }
+
+    @Test
+    public void testSetStepMultiplier() {
+        final SceneController s = newSceneController();
+        s.setStepMultiplier(0f);
+        assertEquals(0, s.getStepMultiplier(), Config.ASSERT_DELTA);
+    }
+
+    @Test
+    public void testSetDotRadiusRange() {
+        final SceneController s = newSceneController();
+        s.setDotRadiusRange(0.5f, 0.6f);
+        assertEquals(0.5, s.getMinDotRadius(), Config.ASSERT_DELTA);
+        assertEquals(0.6, s.getMaxDotRadius(), Config.ASSERT_DELTA);
+    }
+
+    @Test
+    public void testSetLineThickness() {
+        final SceneController s = newSceneController();
+        s.setLineThickness(1f);
+        assertEquals(1, s.getLineThickness(), Config.ASSERT_DELTA);
+    }
+
+    @Test
+    public void testSetLineDistance() {
+        final SceneController s = newSceneController();
+        s.setLineDistance(0f);
+        assertEquals(0, s.getLineDistance(), Config.ASSERT_DELTA);
+    }
+
+    @Test
+    public void testSetNumDots() {
+        final SceneController s = newSceneController();
+        s.setNumDots(0);
+        assertEquals(0, s.getNumDots());
+    }
+
+    @Test
+    public void testSetLineColor() {
+        final SceneController s = newSceneController();
+        s.setLineColor(2);
+        assertEquals(2, s.getLineColor());
+    }
+
+    @Test
+    public void testSetDotColor() {
+        final SceneController s = newSceneController();
+        s.setDotColor(3);
+        assertEquals(3, s.getDotColor());
+    }
+}
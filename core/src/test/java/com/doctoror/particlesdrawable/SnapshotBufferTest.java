@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SnapshotBuffer} test
+ */
+public final class SnapshotBufferTest {
+
+    private static void publish(final SnapshotBuffer buffer, final int count) {
+        final ParticlesSnapshot snapshot = buffer.getBack();
+        snapshot.ensureCapacity(1);
+        snapshot.x[0] = count;
+        snapshot.count = count;
+        buffer.publish();
+    }
+
+    @Test
+    public void testAcquireBeforePublish() {
+        assertEquals(0, new SnapshotBuffer().acquireLatest().count);
+    }
+
+    @Test
+    public void testAcquireReturnsLatestPublished() {
+        final SnapshotBuffer buffer = new SnapshotBuffer();
+        publish(buffer, 1);
+        publish(buffer, 2);
+        assertEquals(2, buffer.acquireLatest().count);
+    }
+
+    @Test
+    public void testAcquireWithoutPublishKeepsSnapshot() {
+        final SnapshotBuffer buffer = new SnapshotBuffer();
+        publish(buffer, 1);
+        final ParticlesSnapshot snapshot = buffer.acquireLatest();
+        assertSame(snapshot, buffer.acquireLatest());
+        assertEquals(1, snapshot.count);
+    }
+
+    @Test
+    public void testBackIsNeverAcquired() {
+        final SnapshotBuffer buffer = new SnapshotBuffer();
+        for (int i = 0; i < 10; i++) {
+            publish(buffer, i);
+            if (i % 3 != 0) {
+                assertNotSame(buffer.getBack(), buffer.acquireLatest());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentPublishAndAcquire() throws InterruptedException {
+        final SnapshotBuffer buffer = new SnapshotBuffer();
+        final int lastCount = 100000;
+        final Thread writer = new Thread() {
+
+            @Override
+            public void run() {
+                for (int i = 1; i <= lastCount; i++) {
+                    publish(buffer, i);
+                }
+            }
+        };
+        writer.start();
+
+        int previous = 0;
+        while (previous != lastCount) {
+            final ParticlesSnapshot snapshot = buffer.acquireLatest();
+            assertTrue(snapshot.count >= previous);
+            if (snapshot.count != 0) {
+                assertEquals(snapshot.count, (int) snapshot.x[0]);
+            }
+            previous = snapshot.count;
+        }
+        writer.join();
+    }
+}
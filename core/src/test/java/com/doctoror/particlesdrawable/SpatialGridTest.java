@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SpatialGrid} test
+ */
+public final class SpatialGridTest {
+
+    @NonNull
+    private static ParticleArrays randomPoints(final int count, final int width,
+            final int height, final float overflow) {
+        final Random random = new Random(count);
+        final ParticleArrays points = new ParticleArrays(count);
+        for (int i = 0; i < count; i++) {
+            final int p = points.add();
+            points.x[p] = -overflow + random.nextFloat() * (width + overflow * 2);
+            points.y[p] = -overflow + random.nextFloat() * (height + overflow * 2);
+        }
+        return points;
+    }
+
+    @NonNull
+    private static Set<String> bruteForcePairs(@NonNull final ParticleArrays points,
+            final float lineDistance) {
+        final Set<String> result = new HashSet<String>();
+        for (int i = 0; i < points.size(); i++) {
+            for (int c = i + 1; c < points.size(); c++) {
+                if (SpatialGrid.distance(points.x[i], points.y[i], points.x[c], points.y[c])
+                        < lineDistance) {
+                    result.add(key(i, c));
+                }
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    private static Set<String> gridPairs(@NonNull final ParticleArrays points,
+            final int width, final int height, final float lineDistance) {
+        final Set<String> result = new HashSet<String>();
+        final SpatialGrid grid = new SpatialGrid();
+        grid.build(points.x, points.y, points.size(), -lineDistance, -lineDistance,
+                width + lineDistance, height + lineDistance, lineDistance);
+        grid.findPairs(points.x, points.y, points.size(), lineDistance,
+                new SpatialGrid.PairCallback() {
+
+                    @Override
+                    public void onPair(final int index1, final int index2,
+                            final float distance) {
+                        assertTrue("Pair reported twice", result.add(key(index1, index2)));
+                    }
+                });
+        return result;
+    }
+
+    @NonNull
+    private static String key(final int i1, final int i2) {
+        return Math.min(i1, i2) + ":" + Math.max(i1, i2);
+    }
+
+    private static void assertSamePairs(final int count, final int width, final int height,
+            final float lineDistance, final float overflow) {
+        final ParticleArrays points = randomPoints(count, width, height, overflow);
+        assertEquals(bruteForcePairs(points, lineDistance),
+                gridPairs(points, width, height, lineDistance));
+    }
+
+    @Test
+    public void testSamePairsAsBruteForce() {
+        assertSamePairs(300, 480, 800, 86f, 0f);
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceWithPointsOutOfBounds() {
+        assertSamePairs(300, 480, 800, 86f, 200f);
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceWithShortLineDistance() {
+        assertSamePairs(200, 1920, 1080, 2f, 10f);
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceWithLineDistanceLargerThanScene() {
+        assertSamePairs(100, 20, 40, 500f, 10f);
+    }
+
+    @Test
+    public void testPairsTested() {
+        final ParticleArrays points = randomPoints(300, 480, 800, 0f);
+        final SpatialGrid grid = new SpatialGrid();
+        grid.build(points.x, points.y, points.size(), 0, 0, 480, 800, 86f);
+        final int[] found = new int[1];
+        grid.findPairs(points.x, points.y, points.size(), 86f, new SpatialGrid.PairCallback() {
+
+            @Override
+            public void onPair(final int index1, final int index2, final float distance) {
+                found[0]++;
+            }
+        });
+        assertTrue(grid.getPairsTested() >= found[0]);
+        assertTrue(grid.getPairsTested() < 300 * 299 / 2);
+    }
+
+    @Test
+    public void testStripesReportSamePairsInSameOrder() {
+        final ParticleArrays points = randomPoints(500, 480, 800, 20f);
+        final SpatialGrid grid = new SpatialGrid();
+        grid.build(points.x, points.y, points.size(), -86f, -86f, 566f, 886f, 86f);
+
+        final List<String> expected = new ArrayList<String>();
+        grid.findPairs(points.x, points.y, points.size(), 86f, new PairRecorder(expected));
+
+        final List<String> actual = new ArrayList<String>();
+        final PairRecorder recorder = new PairRecorder(actual);
+        final int rows = grid.getRows();
+        final int stripes = 3;
+        int pairsTested = 0;
+        for (int i = 0; i < stripes; i++) {
+            pairsTested += grid.findPairs(points.x, points.y, 86f, recorder,
+                    rows * i / stripes, rows * (i + 1) / stripes);
+        }
+
+        assertEquals(expected, actual);
+        assertEquals(grid.getPairsTested(), pairsTested);
+    }
+
+    private static final class PairRecorder implements SpatialGrid.PairCallback {
+
+        private final List<String> mPairs;
+
+        PairRecorder(@NonNull final List<String> pairs) {
+            mPairs = pairs;
+        }
+
+        @Override
+        public void onPair(final int index1, final int index2, final float distance) {
+            mPairs.add(index1 + ":" + index2);
+        }
+    }
+
+    @Test
+    public void testBuildEmpty() {
+        final float[] empty = new float[0];
+        final SpatialGrid grid = new SpatialGrid();
+        grid.build(empty, empty, 0, 0, 0, 10, 10, 1f);
+        grid.findPairs(empty, empty, 0, 1f, new SpatialGrid.PairCallback() {
+
+            @Override
+            public void onPair(final int index1, final int index2, final float distance) {
+                fail("Empty grid reported a pair");
+            }
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildWithZeroCellSize() {
+        final float[] empty = new float[0];
+        new SpatialGrid().build(empty, empty, 0, 0, 0, 10, 10, 0f);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SplitMixRandom} test
+ */
+public final class SplitMixRandomTest {
+
+    @Test
+    public void testSameSeedMakesSameSequence() {
+        final SplitMixRandom a = new SplitMixRandom(42L);
+        final SplitMixRandom b = new SplitMixRandom(1L);
+        b.setSeed(42L);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextInt(1000), b.nextInt(1000));
+        }
+    }
+
+    @Test
+    public void testDifferentSeedsMakeDifferentSequences() {
+        final SplitMixRandom a = new SplitMixRandom(1L);
+        final SplitMixRandom b = new SplitMixRandom(2L);
+        boolean differs = false;
+        for (int i = 0; i < 100 && !differs; i++) {
+            differs = a.nextInt(Integer.MAX_VALUE) != b.nextInt(Integer.MAX_VALUE);
+        }
+        assertTrue(differs);
+    }
+
+    @Test
+    public void testRestoredStateContinuesSequence() {
+        final SplitMixRandom random = new SplitMixRandom(3L);
+        random.nextInt(100);
+        final long state = random.getState();
+        final int first = random.nextInt(1000);
+        final int second = random.nextInt(1000);
+
+        random.nextInt(1000);
+        random.setState(state);
+        assertEquals(first, random.nextInt(1000));
+        assertEquals(second, random.nextInt(1000));
+    }
+
+    @Test
+    public void testNextIntWithinBound() {
+        final SplitMixRandom random = new SplitMixRandom(7L);
+        final int[] bounds = new int[]{1, 2, 3, 360, 1080, Integer.MAX_VALUE};
+        for (final int bound : bounds) {
+            for (int i = 0; i < 10000; i++) {
+                final int value = random.nextInt(bound);
+                assertTrue(value >= 0 && value < bound);
+            }
+        }
+    }
+
+    @Test
+    public void testNextIntIsUniform() {
+        final SplitMixRandom random = new SplitMixRandom(7L);
+        final int[] counts = new int[4];
+        final int samples = 40000;
+        for (int i = 0; i < samples; i++) {
+            counts[random.nextInt(counts.length)]++;
+        }
+        for (final int count : counts) {
+            assertEquals(samples / counts.length, count, samples / 100);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNextIntZeroBound() {
+        new SplitMixRandom().nextInt(0);
+    }
+}
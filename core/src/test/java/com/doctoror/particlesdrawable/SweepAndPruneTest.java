@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SweepAndPrune} test
+ */
+public final class SweepAndPruneTest {
+
+    @NonNull
+    private static ParticleArrays randomPoints(@NonNull final Random random, final int count,
+            final int width, final int height) {
+        final ParticleArrays points = new ParticleArrays(count);
+        for (int i = 0; i < count; i++) {
+            final int p = points.add();
+            points.x[p] = random.nextFloat() * width;
+            points.y[p] = random.nextFloat() * height;
+        }
+        return points;
+    }
+
+    @NonNull
+    private static Set<String> bruteForcePairs(@NonNull final ParticleArrays points,
+            final float lineDistance) {
+        final Set<String> result = new HashSet<String>();
+        for (int i = 0; i < points.size(); i++) {
+            for (int c = i + 1; c < points.size(); c++) {
+                if (SpatialGrid.distance(points.x[i], points.y[i], points.x[c], points.y[c])
+                        < lineDistance) {
+                    result.add(key(i, c));
+                }
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    private static Set<String> sweepPairs(@NonNull final SweepAndPrune sweep,
+            @NonNull final ParticleArrays points, final float lineDistance) {
+        final Set<String> result = new HashSet<String>();
+        sweep.findPairs(points.x, points.y, points.size(), 0, 0, 0, 0, lineDistance,
+                new SpatialGrid.PairCallback() {
+
+                    @Override
+                    public void onPair(final int index1, final int index2,
+                            final float distance) {
+                        assertTrue("Pair reported twice", result.add(key(index1, index2)));
+                    }
+                });
+        return result;
+    }
+
+    @NonNull
+    private static String key(final int i1, final int i2) {
+        return Math.min(i1, i2) + ":" + Math.max(i1, i2);
+    }
+
+    @Test
+    public void testSamePairsAsBruteForce() {
+        final ParticleArrays points = randomPoints(new Random(1), 300, 480, 800);
+        assertEquals(bruteForcePairs(points, 86f),
+                sweepPairs(new SweepAndPrune(), points, 86f));
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceInElongatedScene() {
+        final ParticleArrays points = randomPoints(new Random(2), 500, 2560, 160);
+        assertEquals(bruteForcePairs(points, 86f),
+                sweepPairs(new SweepAndPrune(), points, 86f));
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceWhileMoving() {
+        final Random random = new Random(3);
+        final ParticleArrays points = randomPoints(random, 300, 1920, 200);
+        final SweepAndPrune sweep = new SweepAndPrune();
+        for (int frame = 0; frame < 50; frame++) {
+            assertEquals(bruteForcePairs(points, 86f), sweepPairs(sweep, points, 86f));
+            for (int i = 0; i < points.size(); i++) {
+                points.x[i] += (i % 5 - 2) * 0.7f;
+                points.y[i] += (i % 3 - 1) * 0.7f;
+            }
+            // A respawn-like jump
+            points.x[frame] = random.nextFloat() * 1920;
+        }
+    }
+
+    @Test
+    public void testSamePairsAsBruteForceAfterCountChanges() {
+        final Random random = new Random(4);
+        final SweepAndPrune sweep = new SweepAndPrune();
+        ParticleArrays points = randomPoints(random, 300, 480, 800);
+        sweepPairs(sweep, points, 86f);
+
+        points.truncate(100);
+        assertEquals(bruteForcePairs(points, 86f), sweepPairs(sweep, points, 86f));
+
+        points = randomPoints(random, 400, 480, 800);
+        assertEquals(bruteForcePairs(points, 86f), sweepPairs(sweep, points, 86f));
+    }
+
+    @Test
+    public void testTestsFewerPairsThanAll() {
+        final ParticleArrays points = randomPoints(new Random(5), 1000, 2560, 160);
+        final SweepAndPrune sweep = new SweepAndPrune();
+        sweepPairs(sweep, points, 86f);
+        assertTrue(sweep.getPairsTested() < 1000 * 999 / 2 / 10);
+    }
+
+    @Test
+    public void testEmpty() {
+        final float[] empty = new float[0];
+        new SweepAndPrune().findPairs(empty, empty, 0, 0, 0, 0, 0, 1f,
+                new SpatialGrid.PairCallback() {
+
+                    @Override
+                    public void onPair(final int index1, final int index2,
+                            final float distance) {
+                        fail("Empty sweep reported a pair");
+                    }
+                });
+    }
+}
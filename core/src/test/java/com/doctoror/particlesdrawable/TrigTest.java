@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link Trig} test
+ */
+public final class TrigTest {
+
+    @Test
+    public void testSinCos() {
+        for (int i = 0; i < 720; i++) {
+            final double radians = Math.toRadians(i);
+            assertEquals(Math.sin(radians), Trig.sin(i), 0.000001);
+            assertEquals(Math.cos(radians), Trig.cos(i), 0.000001);
+        }
+    }
+}
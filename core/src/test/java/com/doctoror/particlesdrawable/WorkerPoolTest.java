@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link WorkerPool} test
+ */
+public final class WorkerPoolTest {
+
+    @Test
+    public void testRunsEveryPartOnce() {
+        final WorkerPool pool = new WorkerPool(4);
+        try {
+            for (int run = 0; run < 100; run++) {
+                final AtomicIntegerArray runs = new AtomicIntegerArray(17);
+                pool.run(new WorkerPool.Task() {
+
+                    @Override
+                    public void run(final int part) {
+                        runs.incrementAndGet(part);
+                    }
+                }, runs.length());
+                for (int i = 0; i < runs.length(); i++) {
+                    assertEquals(1, runs.get(i));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRunsPartsConcurrently() {
+        final WorkerPool pool = new WorkerPool(3);
+        final CountDownLatch started = new CountDownLatch(3);
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        try {
+            pool.run(new WorkerPool.Task() {
+
+                @Override
+                public void run(final int part) {
+                    threads.add(Thread.currentThread());
+                    started.countDown();
+                    try {
+                        // Every part waits for the others, so they must run on different threads
+                        assertTrue(started.await(5, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            }, 3);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(3, threads.size());
+    }
+
+    @Test
+    public void testRunWithSingleThread() {
+        final WorkerPool pool = new WorkerPool(1);
+        final int[] sum = new int[1];
+        pool.run(new WorkerPool.Task() {
+
+            @Override
+            public void run(final int part) {
+                sum[0] += part;
+            }
+        }, 4);
+        pool.shutdown();
+        assertEquals(6, sum[0]);
+        assertEquals(1, pool.getParallelism());
+    }
+
+    @Test
+    public void testFailureRethrownAfterAllParts() {
+        final WorkerPool pool = new WorkerPool(2);
+        final AtomicIntegerArray runs = new AtomicIntegerArray(8);
+        try {
+            pool.run(new WorkerPool.Task() {
+
+                @Override
+                public void run(final int part) {
+                    runs.incrementAndGet(part);
+                    if (part == 0) {
+                        throw new IllegalStateException("part failed");
+                    }
+                }
+            }, runs.length());
+            fail("Failure was not rethrown");
+        } catch (IllegalStateException e) {
+            assertEquals("part failed", e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+        for (int i = 0; i < runs.length(); i++) {
+            assertEquals(1, runs.get(i));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRunAfterShutdown() {
+        final WorkerPool pool = new WorkerPool(2);
+        pool.shutdown();
+        pool.run(new WorkerPool.Task() {
+
+            @Override
+            public void run(final int part) {
+            }
+        }, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroParallelism() {
+        new WorkerPool(0);
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+import org.mockito.invocation.Invocation;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Build;
+import android.support.annotation.NonNull;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * {@link CanvasParticlesView} test
+ */
+public final class CanvasParticlesViewTest {
+
+    @Test(expected = IllegalStateException.class)
+    public void testDrawLinesWithoutCanvas() {
+        new CanvasParticlesView().drawLines(new float[4], new int[1], 1, 1f);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFillCirclesWithoutCanvas() {
+        new CanvasParticlesView().fillCircles(new float[2], new float[1], 1, 0);
+    }
+
+    @Test
+    public void testDrawLinesGroupsSameColors() {
+        final Canvas canvas = mock(Canvas.class);
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setCanvas(canvas);
+
+        final float[] points = new float[12];
+        view.drawLines(points, new int[]{0x80ffffff, 0x40ffffff, 0x80ffffff}, 3, 1f);
+
+        // Lines are sorted by alpha, so the non-consecutive lines of the same color are merged
+        verify(canvas).drawLines(any(float[].class), eq(0), eq(4), any(Paint.class));
+        verify(canvas).drawLines(any(float[].class), eq(4), eq(8), any(Paint.class));
+        verifyNoMoreInteractions(canvas);
+    }
+
+    @Test
+    public void testFillCirclesGroupsEqualRadiuses() {
+        final Canvas canvas = mock(Canvas.class);
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setCanvas(canvas);
+
+        final float[] centers = new float[]{1f, 1f, 2f, 2f, 3f, 3f, 4f, 4f};
+        view.fillCircles(centers, new float[]{1f, 2f, 1.05f, 1f}, 4, 0);
+
+        // Only the first and the last radiuses are equal, the others keep exact radiuses
+        verify(canvas).drawPoints(any(float[].class), eq(0), eq(4), any(Paint.class));
+        verify(canvas).drawCircle(eq(3f), eq(3f), eq(1.05f), any(Paint.class));
+        verify(canvas).drawCircle(eq(2f), eq(2f), eq(2f), any(Paint.class));
+        verifyNoMoreInteractions(canvas);
+    }
+
+    @Test
+    public void testFillCirclesQuantizedGroupsSameRadiuses() {
+        final Canvas canvas = mock(Canvas.class);
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setCanvas(canvas);
+        view.setDotRadiusQuantizationEnabled(true);
+
+        final float[] centers = new float[]{1f, 1f, 2f, 2f, 3f, 3f};
+        view.fillCircles(centers, new float[]{1f, 2f, 1.05f}, 3, 0);
+
+        // The first and the last radiuses round to the same step
+        verify(canvas).drawPoints(any(float[].class), eq(0), eq(4), any(Paint.class));
+        verify(canvas).drawCircle(eq(2f), eq(2f), eq(2f), any(Paint.class));
+        verifyNoMoreInteractions(canvas);
+    }
+
+    /**
+     * Draws a frame of a dense default scene with dot radius quantization and makes sure the
+     * number of Canvas calls depends on the number of distinct alpha values and radius steps
+     * rather than on the number of lines and dots.
+     */
+    @Test
+    public void testRealisticSceneCanvasCalls() {
+        final Canvas canvas = mock(Canvas.class);
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setCanvas(canvas);
+        view.setDotRadiusQuantizationEnabled(true);
+
+        final SceneController controller = new SceneController(view, new SceneScheduler() {
+
+            @Override
+            public void scheduleNextFrame(final long delay) {
+            }
+
+            @Override
+            public void unscheduleNextFrame() {
+            }
+
+            @Override
+            public void invalidate() {
+            }
+        });
+        controller.setNumDots(500);
+        controller.setBounds(0, 0, 1080, 1920);
+        controller.makeBrandNewFrame();
+        controller.draw();
+
+        int lineCalls = 0;
+        int lines = 0;
+        int dotCalls = 0;
+        for (final Invocation invocation : mockingDetails(canvas).getInvocations()) {
+            final String name = invocation.getMethod().getName();
+            if (name.equals("drawLines")) {
+                lineCalls++;
+                lines += (Integer) invocation.getArgument(2) / 4;
+            } else if (name.equals("drawPoints") || name.equals("drawCircle")) {
+                dotCalls++;
+            }
+        }
+
+        assertTrue(lines > 512);
+        assertTrue(lineCalls <= 256);
+
+        // Default radiuses are within [1:3] pixels at density of 1
+        assertTrue(dotCalls <= (int) (2f / CanvasParticlesView.DOT_RADIUS_STEP) + 1);
+    }
+
+    @Test
+    public void testSetAntiAliasRestoresPaintAntiAlias() {
+        final CanvasParticlesView view = new CanvasParticlesView();
+        final Paint paint = view.getPaint();
+
+        view.setAntiAlias(false);
+        assertFalse(paint.isAntiAlias());
+        view.setAntiAlias(true);
+        assertTrue(paint.isAntiAlias());
+    }
+
+    @Test
+    public void testSetAntiAliasKeepsAntiAliasDisabledByUser() {
+        final CanvasParticlesView view = new CanvasParticlesView();
+        final Paint paint = view.getPaint();
+        paint.setAntiAlias(false);
+
+        view.setAntiAlias(true);
+        assertFalse(paint.isAntiAlias());
+        view.setAntiAlias(false);
+        view.setAntiAlias(true);
+        assertFalse(paint.isAntiAlias());
+    }
+
+    @SuppressWarnings("Range")
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLineAlphaBucketsNegative() {
+        new CanvasParticlesView().setLineAlphaBuckets(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLineAlphaBucketsOne() {
+        new CanvasParticlesView().setLineAlphaBuckets(1);
+    }
+
+    @SuppressWarnings("Range")
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLineAlphaBucketsTooLarge() {
+        new CanvasParticlesView().setLineAlphaBuckets(257);
+    }
+
+    @Test
+    public void testSetLineAlphaBuckets() {
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setLineAlphaBuckets(16);
+        assertEquals(16, view.getLineAlphaBuckets());
+    }
+
+    @Test
+    public void testAlphaBucketsKeepTransparentAndOpaqueExact() {
+        for (int buckets = 2; buckets <= 256; buckets++) {
+            assertEquals(0, CanvasParticlesView.bucketAlpha(
+                    CanvasParticlesView.alphaBucket(0, buckets), buckets));
+            assertEquals(255, CanvasParticlesView.bucketAlpha(
+                    CanvasParticlesView.alphaBucket(255, buckets), buckets));
+        }
+    }
+
+    @Test
+    public void testAlphaBucketsErrorIsWithinHalfStep() {
+        for (int buckets = 2; buckets <= 256; buckets++) {
+            final float halfStep = 255f / (buckets - 1) / 2f;
+            for (int alpha = 0; alpha <= 255; alpha++) {
+                final int bucket = CanvasParticlesView.alphaBucket(alpha, buckets);
+                assertTrue(bucket >= 0 && bucket < buckets);
+                assertTrue(Math.abs(CanvasParticlesView.bucketAlpha(bucket, buckets) - alpha)
+                        <= halfStep + 0.5f);
+            }
+        }
+    }
+
+    @Test
+    public void testDrawLinesBucketedGroupsByAlpha() {
+        final Canvas canvas = mock(Canvas.class);
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setLineAlphaBuckets(2);
+        view.setCanvas(canvas);
+
+        final float[] points = new float[12];
+        view.drawLines(points, new int[]{0xff000000, 0x10000000, 0xf0000000}, 3, 1f);
+
+        // The transparent bucket is skipped, the opaque one is drawn once
+        verify(canvas).drawLines(any(float[].class), eq(0), eq(8), any(Paint.class));
+        verifyNoMoreInteractions(canvas);
+    }
+
+    @Test
+    public void testDrawLinesMeshSingleCall() {
+        final Canvas canvas = mock(Canvas.class);
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setLineMeshEnabled(true);
+        view.setCanvas(canvas);
+
+        view.drawLines(new float[]{0, 0, 10, 0, 0, 0, 0, 10}, new int[]{1, 2}, 2, 2f);
+
+        // Hardware acceleration is only checked on versions where drawVertices() lacks it
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
+                && Build.VERSION.SDK_INT < 29) {
+            verify(canvas).isHardwareAccelerated();
+        }
+        verify(canvas).drawVertices(eq(Canvas.VertexMode.TRIANGLES), eq(24),
+                any(float[].class), eq(0), (float[]) isNull(), eq(0), any(int[].class), eq(0),
+                (short[]) isNull(), eq(0), eq(0), any(Paint.class));
+        verifyNoMoreInteractions(canvas);
+    }
+
+    /**
+     * Draws lines of every alpha value twice, with exact alpha and as a mesh, and makes sure the
+     * pixels match apart from anti-aliasing at the line edges.
+     */
+    @Test
+    public void testLineMeshMatchesLinesInside() {
+        final int size = 64;
+        final float[] points = new float[size * 4];
+        final int[] colors = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i * 4] = 0;
+            points[i * 4 + 1] = i * 4 + 2;
+            points[i * 4 + 2] = size * 4;
+            points[i * 4 + 3] = i * 4 + 2;
+            colors[i] = (i * 4 << 24) | 0x00FFFFFF;
+        }
+
+        final Bitmap exact = renderLines(points, colors, 0, false, size * 4, 2f);
+        final Bitmap mesh = renderLines(points, colors, 0, true, size * 4, 2f);
+        try {
+            for (int i = 0; i < size; i++) {
+                // Pixel rows fully covered by the line
+                for (int y = i * 4 + 1; y <= i * 4 + 2; y++) {
+                    for (int x = 1; x < size * 4 - 1; x++) {
+                        assertTrue(Math.abs(Color.alpha(exact.getPixel(x, y))
+                                - Color.alpha(mesh.getPixel(x, y))) <= 1);
+                    }
+                }
+            }
+        } finally {
+            exact.recycle();
+            mesh.recycle();
+        }
+    }
+
+    /**
+     * Draws lines of every alpha value, once with exact alpha and once quantized to 32 levels,
+     * and makes sure no pixel differs by more than the quantization half step plus rounding.
+     * A difference of 5 out of 255 is well below what is noticeable on thin lines.
+     */
+    @Test
+    public void testLineAlphaBucketsVisuallyEquivalent() {
+        final int size = 256;
+        final float[] points = new float[size * 4];
+        final int[] colors = new int[size];
+        for (int alpha = 0; alpha < size; alpha++) {
+            points[alpha * 4] = 0;
+            points[alpha * 4 + 1] = alpha + 0.5f;
+            points[alpha * 4 + 2] = size;
+            points[alpha * 4 + 3] = alpha + 0.5f;
+            colors[alpha] = (alpha << 24) | 0x00FFFFFF;
+        }
+
+        final Bitmap exact = renderLines(points, colors, 0, false, size, 1f);
+        final Bitmap bucketed = renderLines(points, colors, 32, false, size, 1f);
+        try {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    final int p1 = exact.getPixel(x, y);
+                    final int p2 = bucketed.getPixel(x, y);
+                    assertTrue(Math.abs(Color.alpha(p1) - Color.alpha(p2)) <= 5);
+                    assertTrue(Math.abs(Color.red(p1) - Color.red(p2)) <= 5);
+                    assertTrue(Math.abs(Color.green(p1) - Color.green(p2)) <= 5);
+                    assertTrue(Math.abs(Color.blue(p1) - Color.blue(p2)) <= 5);
+                }
+            }
+        } finally {
+            exact.recycle();
+            bucketed.recycle();
+        }
+    }
+
+    @NonNull
+    private static Bitmap renderLines(
+            @NonNull final float[] points,
+            @NonNull final int[] colors,
+            final int buckets,
+            final boolean mesh,
+            final int size,
+            final float strokeWidth) {
+        final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        final CanvasParticlesView view = new CanvasParticlesView();
+        view.setLineAlphaBuckets(buckets);
+        view.setLineMeshEnabled(mesh);
+        view.setCanvas(new Canvas(bitmap));
+        view.drawLines(points, colors, colors.length, strokeWidth);
+        view.setCanvas(null);
+        return bitmap;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link DotSpriteAtlas} test
+ */
+public final class DotSpriteAtlasTest {
+
+    @Test
+    public void testSpritesCountForRange() {
+        final DotSpriteAtlas atlas = new DotSpriteAtlas();
+        try {
+            assertTrue(atlas.build(1f, 3f));
+            assertEquals(201, atlas.getSpritesCount());
+        } finally {
+            atlas.recycle();
+        }
+    }
+
+    @Test
+    public void testSpritesCountForSingleRadius() {
+        final DotSpriteAtlas atlas = new DotSpriteAtlas();
+        try {
+            assertTrue(atlas.build(2f, 2f));
+            assertEquals(1, atlas.getSpritesCount());
+        } finally {
+            atlas.recycle();
+        }
+    }
+
+    @Test
+    public void testSpriteIndex() {
+        final DotSpriteAtlas atlas = new DotSpriteAtlas();
+        try {
+            atlas.build(0.5f, 0.6f);
+            assertEquals(0, atlas.spriteIndex(0.5f));
+            assertEquals(3, atlas.spriteIndex(0.53f));
+            assertEquals(10, atlas.spriteIndex(0.6f));
+        } finally {
+            atlas.recycle();
+        }
+    }
+
+    @Test
+    public void testHasSprite() {
+        final DotSpriteAtlas atlas = new DotSpriteAtlas();
+        try {
+            atlas.build(1f, 2f);
+            assertTrue(atlas.hasSprite(1f));
+            assertTrue(atlas.hasSprite(1.5f));
+            assertTrue(atlas.hasSprite(2f));
+            assertFalse(atlas.hasSprite(0.9f));
+            assertFalse(atlas.hasSprite(2.1f));
+        } finally {
+            atlas.recycle();
+        }
+    }
+
+    @Test
+    public void testBuildReplacesRange() {
+        final DotSpriteAtlas atlas = new DotSpriteAtlas();
+        try {
+            atlas.build(1f, 3f);
+            assertTrue(atlas.build(1f, 2f));
+            assertEquals(101, atlas.getSpritesCount());
+            assertFalse(atlas.hasSprite(3f));
+        } finally {
+            atlas.recycle();
+        }
+    }
+
+    @Test
+    public void testBuildTooLarge() {
+        final DotSpriteAtlas atlas = new DotSpriteAtlas();
+        assertFalse(atlas.build(1f, 500f));
+        assertFalse(atlas.isBuilt());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDrawWhenNotBuilt() {
+        new DotSpriteAtlas().draw(new Canvas(), 0f, 0f, 1f, new Paint());
+    }
+}
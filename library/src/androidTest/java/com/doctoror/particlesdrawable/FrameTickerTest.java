@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.view.Choreographer;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link FrameTicker} test. Runs on the main thread, which is blocked meanwhile, so that real
+ * frame callbacks do not interfere.
+ */
+public final class FrameTickerTest {
+
+    @Test
+    public void testTicksDueClientsWithSameFrameTime() throws Throwable {
+        runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                final FrameTicker ticker = new FrameTicker(Choreographer.getInstance());
+                final RecordingClient c1 = new RecordingClient();
+                final RecordingClient c2 = new RecordingClient();
+                ticker.schedule(c1, 0L);
+                ticker.schedule(c2, 0L);
+
+                ticker.doFrame(32000000L);
+
+                assertEquals(1, c1.ticks);
+                assertEquals(1, c2.ticks);
+                assertEquals(32L, c1.frameTime);
+                assertEquals(32L, c2.frameTime);
+                assertFalse(ticker.isScheduled(c1));
+                assertFalse(ticker.isScheduled(c2));
+            }
+        });
+    }
+
+    @Test
+    public void testDoesNotTickClientsThatAreNotDue() throws Throwable {
+        runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                final FrameTicker ticker = new FrameTicker(Choreographer.getInstance());
+                final RecordingClient client = new RecordingClient();
+                ticker.schedule(client, 10000L);
+
+                ticker.doFrame(System.nanoTime());
+
+                assertEquals(0, client.ticks);
+                assertTrue(ticker.isScheduled(client));
+                ticker.unschedule(client);
+            }
+        });
+    }
+
+    @Test
+    public void testDropsClientsThatAreNotTickable() throws Throwable {
+        runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                final FrameTicker ticker = new FrameTicker(Choreographer.getInstance());
+                final RecordingClient client = new RecordingClient();
+                client.tickable = false;
+                ticker.schedule(client, 0L);
+
+                ticker.doFrame(System.nanoTime());
+
+                assertEquals(0, client.ticks);
+                assertFalse(ticker.isScheduled(client));
+            }
+        });
+    }
+
+    @Test
+    public void testClientMayScheduleWhenTicked() throws Throwable {
+        runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                final FrameTicker ticker = new FrameTicker(Choreographer.getInstance());
+                final RecordingClient client = new RecordingClient();
+                client.ticker = ticker;
+                ticker.schedule(client, 0L);
+
+                ticker.doFrame(System.nanoTime());
+
+                assertEquals(1, client.ticks);
+                assertTrue(ticker.isScheduled(client));
+                ticker.unschedule(client);
+            }
+        });
+    }
+
+    @Test
+    public void testUnschedule() throws Throwable {
+        runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                final FrameTicker ticker = new FrameTicker(Choreographer.getInstance());
+                final RecordingClient client = new RecordingClient();
+                ticker.schedule(client, 0L);
+                ticker.unschedule(client);
+
+                ticker.doFrame(System.nanoTime());
+
+                assertEquals(0, client.ticks);
+                assertFalse(ticker.isScheduled(client));
+            }
+        });
+    }
+
+    @Test
+    public void testManyClients() throws Throwable {
+        runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                final FrameTicker ticker = new FrameTicker(Choreographer.getInstance());
+                final RecordingClient[] clients = new RecordingClient[20];
+                for (int i = 0; i < clients.length; i++) {
+                    clients[i] = new RecordingClient();
+                    ticker.schedule(clients[i], i % 2 == 0 ? 0L : 10000L);
+                }
+
+                ticker.doFrame(System.nanoTime());
+
+                for (int i = 0; i < clients.length; i++) {
+                    assertEquals(i % 2 == 0 ? 1 : 0, clients[i].ticks);
+                    ticker.unschedule(clients[i]);
+                }
+            }
+        });
+    }
+
+    private static void runOnMainSync(@NonNull final Runnable test) throws Throwable {
+        final Throwable[] failure = new Throwable[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    test.run();
+                } catch (Throwable t) {
+                    failure[0] = t;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private static final class RecordingClient implements FrameTicker.Client {
+
+        boolean tickable = true;
+        FrameTicker ticker;
+
+        int ticks;
+        long frameTime;
+
+        @Override
+        public boolean isTickable() {
+            return tickable;
+        }
+
+        @Override
+        public void onTick(final long frameTimeMillis) {
+            ticks++;
+            frameTime = frameTimeMillis;
+            if (ticker != null) {
+                ticker.schedule(this, 16L);
+            }
+        }
+    }
+}
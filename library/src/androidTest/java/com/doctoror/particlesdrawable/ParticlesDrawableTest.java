@@ -19,6 +19,8 @@ import org.junit.Test;
 
 import android.annotation.TargetApi;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.annotation.RequiresApi;
@@ -179,6 +181,149 @@ public final class ParticlesDrawableTest {
         assertEquals(1.1, v.getStepMultiplier(), Config.ASSERT_DELTA);
     }
 
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testLineAlphaBucketsFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertEquals(16, v.getLineAlphaBuckets());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testLineMeshEnabledFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertTrue(v.isLineMeshEnabled());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testDotRadiusQuantizationEnabledFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertTrue(v.isDotRadiusQuantizationEnabled());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testDotSpritesEnabledFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertTrue(v.isDotSpritesEnabled());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testSimulationRateFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertEquals(30, v.getSimulationRate());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testBackgroundSimulationEnabledFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertTrue(v.isBackgroundSimulationEnabled());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testAdaptiveQualityEnabledFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertTrue(v.isAdaptiveQualityEnabled());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testTargetFrameBudgetFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertEquals(12, v.getTargetFrameBudget());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testStaticFrameCachingEnabledFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertTrue(v.isStaticFrameCachingEnabled());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testParallelismFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertEquals(3, v.getParallelism());
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testNeighborListSkinFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertEquals(dp(7), v.getNeighborListSkin(), Config.ASSERT_DELTA);
+    }
+
+    @Test
+    @TargetApi(Build.VERSION_CODES.N)
+    public void testPairFinderFromAttributes() {
+        final ParticlesDrawable v = inflateCustomizedDrawable();
+        assertEquals(PairFinder.SWEEP_AND_PRUNE, v.getPairFinder());
+    }
+
+    @Test
+    public void testSetStaticFrameCachingEnabled() {
+        final ParticlesDrawable s = new ParticlesDrawable();
+        s.setStaticFrameCachingEnabled(true);
+        assertTrue(s.isStaticFrameCachingEnabled());
+    }
+
+    @Test
+    public void testStaticFrameIsDrawnOnceUntilChanged() {
+        final ParticlesDrawable d = new ParticlesDrawable();
+        final FrameCounter counter = new FrameCounter();
+        d.setFrameStatsListener(counter);
+        d.setStaticFrameCachingEnabled(true);
+        d.setBounds(0, 0, 10, 10);
+
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+        d.draw(canvas);
+        d.draw(canvas);
+        assertEquals(1, counter.frames);
+
+        d.setAlpha(128);
+        d.draw(canvas);
+        d.draw(canvas);
+        assertEquals(2, counter.frames);
+
+        d.makeBrandNewFrame();
+        d.draw(canvas);
+        assertEquals(3, counter.frames);
+    }
+
+    @Test
+    public void testStaticFrameIsNotCachedWhenRunning() {
+        final ParticlesDrawable d = new ParticlesDrawable();
+        final FrameCounter counter = new FrameCounter();
+        d.setFrameStatsListener(counter);
+        d.setStaticFrameCachingEnabled(true);
+        d.setBounds(0, 0, 10, 10);
+
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+        d.start();
+        try {
+            d.draw(canvas);
+            d.draw(canvas);
+        } finally {
+            d.stop();
+        }
+        assertEquals(2, counter.frames);
+    }
+
+    private static final class FrameCounter implements FrameStatsListener {
+
+        int frames;
+
+        @Override
+        public void onFrameStats(@NonNull final FrameStats stats) {
+            frames++;
+        }
+    }
+
     @Test
     public void testSetFrameDelay() {
         final ParticlesDrawable s = new ParticlesDrawable();
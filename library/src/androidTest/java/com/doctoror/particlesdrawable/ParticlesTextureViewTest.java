@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import org.junit.Test;
+
+import android.graphics.SurfaceTexture;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.view.View;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ParticlesTextureView} test
+ */
+public final class ParticlesTextureViewTest {
+
+    @NonNull
+    private ParticlesTextureView newParticlesView() {
+        final ParticlesTextureView v = new ParticlesTextureView(
+                InstrumentationRegistry.getContext());
+        v.setEmulateOnAttachToWindow(true);
+        return v;
+    }
+
+    @NonNull
+    private ParticlesTextureView newAttachedAndVisibleParticlesView() {
+        final ParticlesTextureView v = newParticlesView();
+        v.setVisibility(View.VISIBLE);
+        v.onAttachedToWindow();
+        return v;
+    }
+
+    @Test
+    public void testIsRunningByDefault() {
+        assertFalse(newParticlesView().isRunning());
+    }
+
+    @Test
+    public void testNotRunningWithoutSurface() {
+        assertFalse(newAttachedAndVisibleParticlesView().isRunning());
+    }
+
+    @Test
+    public void testIsRunningWhenSurfaceAvailable() {
+        final ParticlesTextureView v = newAttachedAndVisibleParticlesView();
+        final SurfaceTexture surface = new SurfaceTexture(0);
+        v.onSurfaceTextureAvailable(surface, 10, 10);
+        try {
+            assertTrue(v.isRunning());
+        } finally {
+            v.onSurfaceTextureDestroyed(surface);
+        }
+    }
+
+    @Test
+    public void testIsStoppedWhenSurfaceDestroyed() {
+        final ParticlesTextureView v = newAttachedAndVisibleParticlesView();
+        final SurfaceTexture surface = new SurfaceTexture(0);
+        v.onSurfaceTextureAvailable(surface, 10, 10);
+        v.onSurfaceTextureDestroyed(surface);
+        assertFalse(v.isRunning());
+    }
+
+    @Test
+    public void testIsStoppedWhenDetachedFromWindow() {
+        final ParticlesTextureView v = newAttachedAndVisibleParticlesView();
+        final SurfaceTexture surface = new SurfaceTexture(0);
+        v.onSurfaceTextureAvailable(surface, 10, 10);
+        try {
+            v.onDetachedFromWindow();
+            assertFalse(v.isRunning());
+        } finally {
+            v.onSurfaceTextureDestroyed(surface);
+        }
+    }
+
+    @Test
+    public void testNotRunningWhenInvisible() {
+        final ParticlesTextureView v = newAttachedAndVisibleParticlesView();
+        final SurfaceTexture surface = new SurfaceTexture(0);
+        v.onSurfaceTextureAvailable(surface, 10, 10);
+        try {
+            v.setVisibility(View.INVISIBLE);
+            v.onVisibilityChanged(v, View.INVISIBLE);
+            assertFalse(v.isRunning());
+        } finally {
+            v.onSurfaceTextureDestroyed(surface);
+        }
+    }
+
+    @Test
+    public void testNotRunningWhenExplicitlyStoppedAndSurfaceAvailable() {
+        final ParticlesTextureView v = newAttachedAndVisibleParticlesView();
+        v.stop();
+        final SurfaceTexture surface = new SurfaceTexture(0);
+        v.onSurfaceTextureAvailable(surface, 10, 10);
+        try {
+            assertFalse(v.isRunning());
+        } finally {
+            v.onSurfaceTextureDestroyed(surface);
+        }
+    }
+
+    @Test
+    public void testRunningWhenExplicitlyStartedAfterExplicitStop() {
+        final ParticlesTextureView v = newAttachedAndVisibleParticlesView();
+        final SurfaceTexture surface = new SurfaceTexture(0);
+        v.onSurfaceTextureAvailable(surface, 10, 10);
+        try {
+            v.stop();
+            v.start();
+            assertTrue(v.isRunning());
+        } finally {
+            v.onSurfaceTextureDestroyed(surface);
+        }
+    }
+
+    @Test
+    public void testMakeBrandNewFrameWhenStopped() {
+        final ParticlesTextureView v = newAttachedAndVisibleParticlesView();
+        final SurfaceTexture surface = new SurfaceTexture(0);
+        v.onSurfaceTextureAvailable(surface, 10, 10);
+        try {
+            v.stop();
+            v.makeBrandNewFrame();
+        } finally {
+            v.onSurfaceTextureDestroyed(surface);
+        }
+    }
+
+    @Test
+    public void testSetNumDots() {
+        final ParticlesTextureView s = newParticlesView();
+        s.setNumDots(1);
+        assertEquals(1, s.getNumDots());
+    }
+}
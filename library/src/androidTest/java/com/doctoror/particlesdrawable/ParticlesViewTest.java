@@ -279,4 +279,70 @@ public final class ParticlesViewTest {
         final ParticlesView v = inflateCustomizedView();
         assertEquals(1.1, v.getStepMultiplier(), Config.ASSERT_DELTA);
     }
+
+    @Test
+    public void testLineAlphaBucketsFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertEquals(16, v.getLineAlphaBuckets());
+    }
+
+    @Test
+    public void testLineMeshEnabledFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertTrue(v.isLineMeshEnabled());
+    }
+
+    @Test
+    public void testDotRadiusQuantizationEnabledFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertTrue(v.isDotRadiusQuantizationEnabled());
+    }
+
+    @Test
+    public void testDotSpritesEnabledFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertTrue(v.isDotSpritesEnabled());
+    }
+
+    @Test
+    public void testSimulationRateFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertEquals(30, v.getSimulationRate());
+    }
+
+    @Test
+    public void testBackgroundSimulationEnabledFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertTrue(v.isBackgroundSimulationEnabled());
+    }
+
+    @Test
+    public void testAdaptiveQualityEnabledFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertTrue(v.isAdaptiveQualityEnabled());
+    }
+
+    @Test
+    public void testTargetFrameBudgetFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertEquals(12, v.getTargetFrameBudget());
+    }
+
+    @Test
+    public void testParallelismFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertEquals(3, v.getParallelism());
+    }
+
+    @Test
+    public void testNeighborListSkinFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertEquals(dp(7), v.getNeighborListSkin(), Config.ASSERT_DELTA);
+    }
+
+    @Test
+    public void testPairFinderFromAttributes() {
+        final ParticlesView v = inflateCustomizedView();
+        assertEquals(PairFinder.SWEEP_AND_PRUNE, v.getPairFinder());
+    }
 }
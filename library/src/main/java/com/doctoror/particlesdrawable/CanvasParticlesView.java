@@ -15,27 +15,240 @@
  */
 package com.doctoror.particlesdrawable;
 
+import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
+import android.os.Build;
 import android.support.annotation.ColorInt;
+import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import java.util.Arrays;
 
 /**
  * {@link IParticlesView} that draws on {@link Canvas}
  */
 final class CanvasParticlesView implements IParticlesView {
 
+    /**
+     * Hardware accelerated {@link Canvas#drawVertices} is supported starting with API 29
+     */
+    private static final int MIN_SDK_HARDWARE_DRAW_VERTICES = 29;
+
+    /**
+     * Two triangles per line
+     */
+    private static final int MESH_VERTICES_PER_LINE = 6;
+
+    /**
+     * Number of exact alpha values, used to group lines of the same color when alpha buckets
+     * are not set
+     */
+    private static final int ALPHA_LEVELS = 256;
+
+    /**
+     * Dots radiuses are rounded to this step in pixels when radius quantization is enabled, so
+     * that dots of close radiuses are drawn with a single call
+     */
+    @VisibleForTesting
+    static final float DOT_RADIUS_STEP = 0.125f;
+
     private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.DITHER_FLAG);
 
     @Nullable
     private Canvas mCanvas;
 
+    /**
+     * Whether anti-aliasing is disabled by {@link #setAntiAlias(boolean)}
+     */
+    private boolean mAntiAliasDisabled;
+
+    /**
+     * The anti-aliasing of the paint before it was disabled
+     */
+    private boolean mRestoredAntiAlias;
+
+    private int mLineAlphaBuckets = Defaults.DEFAULT_LINE_ALPHA_BUCKETS;
+
+    private boolean mLineMeshEnabled = Defaults.DEFAULT_LINE_MESH_ENABLED;
+
+    private boolean mDotRadiusQuantizationEnabled
+            = Defaults.DEFAULT_DOT_RADIUS_QUANTIZATION_ENABLED;
+
+    private boolean mDotSpritesEnabled = Defaults.DEFAULT_DOT_SPRITES_ENABLED;
+
+    private final DotSpriteAtlas mDotSprites = new DotSpriteAtlas();
+
+    /**
+     * Whether the dot radius range needs an atlas larger than {@link DotSpriteAtlas#MAX_PIXELS}
+     */
+    private boolean mDotSpritesTooLarge;
+
+    private float mMinDotRadius;
+    private float mMaxDotRadius;
+
+    /**
+     * Line mesh triangle vertices, two values per vertex
+     */
+    private float[] mMeshVertices = new float[0];
+
+    /**
+     * Line mesh vertex colors, one per vertex
+     */
+    private int[] mMeshColors = new int[0];
+
+    /**
+     * Lines count per alpha bucket, then reused as bucket write offsets
+     */
+    private int[] mBucketOffsets = new int[0];
+
+    /**
+     * Line coordinates sorted by alpha bucket
+     */
+    private float[] mBucketedPoints = new float[0];
+
+    /**
+     * Line colors sorted by alpha bucket
+     */
+    private int[] mBucketedColors = new int[0];
+
+    /**
+     * Dots count per radius step, then reused as step write offsets
+     */
+    private int[] mRadiusOffsets = new int[0];
+
+    /**
+     * Dot radius bits in the high half and dot index in the low half, sorted by radius
+     */
+    private long[] mDotSortKeys = new long[0];
+
+    /**
+     * Dot centers sorted by radius, or by radius step when quantized
+     */
+    private float[] mSortedCenters = new float[0];
+
     void setCanvas(@Nullable final Canvas canvas) {
         mCanvas = canvas;
     }
 
+    void handleAttrs(@NonNull final TypedArray a) {
+        final int count = a.getIndexCount();
+        for (int i = 0; i < count; i++) {
+            final int attr = a.getIndex(i);
+            if (attr == R.styleable.ParticlesView_lineAlphaBuckets) {
+                setLineAlphaBuckets(a.getInteger(attr, Defaults.DEFAULT_LINE_ALPHA_BUCKETS));
+
+            } else if (attr == R.styleable.ParticlesView_lineMeshEnabled) {
+                setLineMeshEnabled(a.getBoolean(attr, Defaults.DEFAULT_LINE_MESH_ENABLED));
+
+            } else if (attr == R.styleable.ParticlesView_dotRadiusQuantizationEnabled) {
+                setDotRadiusQuantizationEnabled(a.getBoolean(attr,
+                        Defaults.DEFAULT_DOT_RADIUS_QUANTIZATION_ENABLED));
+
+            } else if (attr == R.styleable.ParticlesView_dotSpritesEnabled) {
+                setDotSpritesEnabled(a.getBoolean(attr, Defaults.DEFAULT_DOT_SPRITES_ENABLED));
+            }
+        }
+    }
+
+    /**
+     * Sets the number of alpha levels lines are quantized to. When set, lines of the same alpha
+     * level are drawn with a single {@link Canvas#drawLines(float[], int, int, Paint)} call, so
+     * the number of draw calls per frame does not exceed the number of levels. The line color
+     * RGB is taken from the first line of a batch. 0 disables quantization.
+     *
+     * @param buckets the number of alpha levels, 0 or in [2:256] range
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    void setLineAlphaBuckets(@IntRange(from = 0, to = 256) final int buckets) {
+        if (buckets < 0 || buckets == 1 || buckets > 256) {
+            throw new IllegalArgumentException("line alpha buckets must be 0 or in [2:256] range");
+        }
+        mLineAlphaBuckets = buckets;
+    }
+
+    int getLineAlphaBuckets() {
+        return mLineAlphaBuckets;
+    }
+
+    /**
+     * When enabled, lines are built as a mesh of thin quads with per-vertex colors and drawn
+     * with a single {@link Canvas#drawVertices} call, keeping exact alpha of every line. Takes
+     * precedence over line alpha buckets. Mesh lines are not anti-aliased. Hardware accelerated
+     * canvas does not support drawing vertices before API 29, so lines are drawn as if the mesh
+     * was disabled in that case.
+     *
+     * @param enabled whether to draw lines as a mesh
+     */
+    void setLineMeshEnabled(final boolean enabled) {
+        mLineMeshEnabled = enabled;
+    }
+
+    boolean isLineMeshEnabled() {
+        return mLineMeshEnabled;
+    }
+
+    /**
+     * When enabled, dot radiuses are rounded to {@link #DOT_RADIUS_STEP}, so that dots of close
+     * radiuses are drawn with a single call and the number of dot draw calls per frame depends
+     * on the radius range rather than on the number of dots. When disabled, dots keep exact
+     * radiuses and only dots of equal radiuses share a call.
+     *
+     * @param enabled whether to round dot radiuses
+     */
+    void setDotRadiusQuantizationEnabled(final boolean enabled) {
+        mDotRadiusQuantizationEnabled = enabled;
+    }
+
+    boolean isDotRadiusQuantizationEnabled() {
+        return mDotRadiusQuantizationEnabled;
+    }
+
+    /**
+     * When enabled, dots are drawn from pre-rendered sprites instead of being rasterized as
+     * circles every frame. Sprites are built for the range set with
+     * {@link #setDotRadiusRange(float, float)}, and dots of other radiuses are drawn as circles.
+     *
+     * @param enabled whether to draw dots from pre-rendered sprites
+     * @see DotSpriteAtlas
+     */
+    void setDotSpritesEnabled(final boolean enabled) {
+        mDotSpritesEnabled = enabled;
+        if (!enabled) {
+            invalidateDotSprites();
+        }
+    }
+
+    boolean isDotSpritesEnabled() {
+        return mDotSpritesEnabled;
+    }
+
+    /**
+     * Sets the range of dot radiuses, in pixels, that dot sprites are built for. Releases the
+     * sprites, which are rebuilt when next drawn. Sprites are tinted with the dot color when
+     * drawn, so color changes do not need rebuilding.
+     *
+     * @param minRadius the minimum dot radius
+     * @param maxRadius the maximum dot radius
+     */
+    void setDotRadiusRange(final float minRadius, final float maxRadius) {
+        mMinDotRadius = minRadius;
+        mMaxDotRadius = maxRadius;
+        invalidateDotSprites();
+    }
+
+    /**
+     * Releases pre-rendered dot sprites. They are rebuilt when next drawn.
+     */
+    void invalidateDotSprites() {
+        mDotSprites.recycle();
+        mDotSpritesTooLarge = false;
+    }
+
     @NonNull
     Paint getPaint() {
         return mPaint;
@@ -65,4 +278,422 @@ final class CanvasParticlesView implements IParticlesView {
         mPaint.setColor(color);
         mCanvas.drawCircle(cx, cy, radius, mPaint);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Lines are sorted by alpha, and lines of the same color are drawn with a single
+     * {@link Canvas#drawLines(float[], int, int, Paint)} call. Lines of the same color look the
+     * same in any order, so the result does not change. If line alpha buckets are set, lines
+     * are grouped by quantized alpha instead.
+     *
+     * @see #setLineAlphaBuckets(int)
+     */
+    @Override
+    public void drawLines(@NonNull final float[] points, @NonNull final int[] colors,
+            final int count, final float strokeWidth) {
+        final Canvas canvas = mCanvas;
+        if (canvas == null) {
+            throw new IllegalStateException("Called in wrong state");
+        }
+        if (mLineMeshEnabled && canDrawVertices(canvas)) {
+            drawLinesMesh(canvas, points, colors, count, strokeWidth);
+            return;
+        }
+        mPaint.setStrokeWidth(strokeWidth);
+        if (mLineAlphaBuckets != 0) {
+            drawLinesBucketed(canvas, points, colors, count);
+            return;
+        }
+        if (count == 0) {
+            return;
+        }
+        sortLinesByAlpha(points, colors, count, ALPHA_LEVELS);
+
+        final float[] sortedPoints = mBucketedPoints;
+        final int[] sortedColors = mBucketedColors;
+        int runStart = 0;
+        while (runStart < count) {
+            final int color = sortedColors[runStart];
+            int runEnd = runStart + 1;
+            while (runEnd < count && sortedColors[runEnd] == color) {
+                runEnd++;
+            }
+            mPaint.setColor(color);
+            canvas.drawLines(sortedPoints, runStart * 4, (runEnd - runStart) * 4, mPaint);
+            runStart = runEnd;
+        }
+    }
+
+    private static boolean canDrawVertices(@NonNull final Canvas canvas) {
+        return Build.VERSION.SDK_INT >= MIN_SDK_HARDWARE_DRAW_VERTICES
+                || Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB
+                || !canvas.isHardwareAccelerated();
+    }
+
+    private void drawLinesMesh(
+            @NonNull final Canvas canvas,
+            @NonNull final float[] points,
+            @NonNull final int[] colors,
+            final int count,
+            final float strokeWidth) {
+        if (count == 0) {
+            return;
+        }
+        final int verticesCount = count * MESH_VERTICES_PER_LINE;
+        if (mMeshColors.length < verticesCount) {
+            final int capacity = colors.length * MESH_VERTICES_PER_LINE;
+            mMeshVertices = new float[capacity * 2];
+            mMeshColors = new int[capacity];
+        }
+
+        final float[] vertices = mMeshVertices;
+        final int[] meshColors = mMeshColors;
+        final float halfWidth = strokeWidth / 2f;
+        int v = 0;
+        int c = 0;
+        for (int i = 0; i < count; i++) {
+            final float startX = points[i * 4];
+            final float startY = points[i * 4 + 1];
+            final float stopX = points[i * 4 + 2];
+            final float stopY = points[i * 4 + 3];
+
+            // Normal to the line, scaled to half of the line width
+            final float dx = stopX - startX;
+            final float dy = stopY - startY;
+            final float length = (float) Math.sqrt(dx * dx + dy * dy);
+            final float nx;
+            final float ny;
+            if (length == 0f) {
+                nx = 0f;
+                ny = 0f;
+            } else {
+                nx = -dy / length * halfWidth;
+                ny = dx / length * halfWidth;
+            }
+
+            // First triangle: start + n, start - n, stop + n
+            vertices[v++] = startX + nx;
+            vertices[v++] = startY + ny;
+            vertices[v++] = startX - nx;
+            vertices[v++] = startY - ny;
+            vertices[v++] = stopX + nx;
+            vertices[v++] = stopY + ny;
+
+            // Second triangle: stop + n, start - n, stop - n
+            vertices[v++] = stopX + nx;
+            vertices[v++] = stopY + ny;
+            vertices[v++] = startX - nx;
+            vertices[v++] = startY - ny;
+            vertices[v++] = stopX - nx;
+            vertices[v++] = stopY - ny;
+
+            final int color = colors[i];
+            for (int k = 0; k < MESH_VERTICES_PER_LINE; k++) {
+                meshColors[c++] = color;
+            }
+        }
+
+        // Vertex colors are modulated by paint alpha, so it must be opaque
+        mPaint.setColor(Color.WHITE);
+        canvas.drawVertices(Canvas.VertexMode.TRIANGLES, verticesCount * 2, vertices, 0,
+                null, 0, meshColors, 0, null, 0, 0, mPaint);
+    }
+
+    private void drawLinesBucketed(
+            @NonNull final Canvas canvas,
+            @NonNull final float[] points,
+            @NonNull final int[] colors,
+            final int count) {
+        if (count == 0) {
+            return;
+        }
+        final int buckets = mLineAlphaBuckets;
+        sortLinesByAlpha(points, colors, count, buckets);
+
+        final int[] offsets = mBucketOffsets;
+        final float[] bucketed = mBucketedPoints;
+        final int rgb = colors[0] & 0x00FFFFFF;
+        for (int b = 0; b < buckets; b++) {
+            final int start = offsets[b];
+            final int end = b + 1 < buckets ? offsets[b + 1] : count;
+            final int alpha = bucketAlpha(b, buckets);
+            if (end != start && alpha != 0) {
+                mPaint.setColor(rgb | (alpha << 24));
+                canvas.drawLines(bucketed, start * 4, (end - start) * 4, mPaint);
+            }
+        }
+    }
+
+    /**
+     * Sorts lines by alpha bucket into {@link #mBucketedPoints} and {@link #mBucketedColors},
+     * keeping the order of lines within a bucket, and leaves the start offset of every bucket
+     * in {@link #mBucketOffsets}.
+     *
+     * @param points  the line coordinates
+     * @param colors  the line colors
+     * @param count   the number of lines
+     * @param buckets the number of alpha buckets
+     */
+    private void sortLinesByAlpha(
+            @NonNull final float[] points,
+            @NonNull final int[] colors,
+            final int count,
+            final int buckets) {
+        if (mBucketOffsets.length < buckets) {
+            mBucketOffsets = new int[buckets];
+        }
+        if (mBucketedColors.length < count) {
+            mBucketedPoints = new float[points.length];
+            mBucketedColors = new int[colors.length];
+        }
+
+        final int[] offsets = mBucketOffsets;
+        for (int b = 0; b < buckets; b++) {
+            offsets[b] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            offsets[alphaBucket(colors[i] >>> 24, buckets)]++;
+        }
+
+        // Turn counts into bucket end offsets, then scatter in reverse to get start offsets
+        for (int b = 1; b < buckets; b++) {
+            offsets[b] += offsets[b - 1];
+        }
+        final float[] bucketed = mBucketedPoints;
+        final int[] bucketedColors = mBucketedColors;
+        for (int i = count - 1; i >= 0; i--) {
+            final int color = colors[i];
+            final int target = --offsets[alphaBucket(color >>> 24, buckets)];
+            final int source = i * 4;
+            bucketed[target * 4] = points[source];
+            bucketed[target * 4 + 1] = points[source + 1];
+            bucketed[target * 4 + 2] = points[source + 2];
+            bucketed[target * 4 + 3] = points[source + 3];
+            bucketedColors[target] = color;
+        }
+    }
+
+    /**
+     * Returns the bucket the alpha value falls into. Alpha is rounded to the nearest of evenly
+     * spaced levels, so 0 and 255 remain exact.
+     *
+     * @param alpha   the alpha in [0:255] range
+     * @param buckets the number of buckets
+     * @return the bucket index
+     */
+    @VisibleForTesting
+    static int alphaBucket(final int alpha, final int buckets) {
+        return (alpha * (buckets - 1) + 127) / 255;
+    }
+
+    /**
+     * Returns the alpha value lines of the bucket are drawn with
+     *
+     * @param bucket  the bucket index
+     * @param buckets the number of buckets
+     * @return the alpha in [0:255] range
+     */
+    @VisibleForTesting
+    static int bucketAlpha(final int bucket, final int buckets) {
+        return (bucket * 255 + (buckets - 1) / 2) / (buckets - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Circles are sorted by radius, and circles of equal radius are drawn with a single
+     * {@link Canvas#drawPoints(float[], int, int, Paint)} call using round caps.
+     *
+     * @see #setDotRadiusQuantizationEnabled(boolean)
+     */
+    @Override
+    public void fillCircles(@NonNull final float[] centers, @NonNull final float[] radiuses,
+            final int count, @ColorInt final int color) {
+        final Canvas canvas = mCanvas;
+        if (canvas == null) {
+            throw new IllegalStateException("Called in wrong state");
+        }
+        mPaint.setColor(color);
+        if (mDotSpritesEnabled && fillCirclesFromSprites(canvas, centers, radiuses, count)) {
+            return;
+        }
+        if (count == 0) {
+            return;
+        }
+        if (mDotRadiusQuantizationEnabled) {
+            fillCirclesQuantized(canvas, centers, radiuses, count);
+            return;
+        }
+        if (mDotSortKeys.length < count) {
+            mDotSortKeys = new long[radiuses.length];
+        }
+        if (mSortedCenters.length < count * 2) {
+            mSortedCenters = new float[centers.length];
+        }
+
+        // Bits of positive floats order the same way as the floats
+        final long[] keys = mDotSortKeys;
+        for (int i = 0; i < count; i++) {
+            keys[i] = (long) Float.floatToIntBits(radiuses[i]) << 32 | i;
+        }
+        Arrays.sort(keys, 0, count);
+
+        final float[] sorted = mSortedCenters;
+        for (int i = 0; i < count; i++) {
+            final int index = (int) keys[i];
+            sorted[i * 2] = centers[index * 2];
+            sorted[i * 2 + 1] = centers[index * 2 + 1];
+        }
+
+        final Paint.Cap cap = mPaint.getStrokeCap();
+        final float strokeWidth = mPaint.getStrokeWidth();
+        int start = 0;
+        while (start < count) {
+            final int radiusBits = (int) (keys[start] >>> 32);
+            int end = start + 1;
+            while (end < count && (int) (keys[end] >>> 32) == radiusBits) {
+                end++;
+            }
+            final float radius = Float.intBitsToFloat(radiusBits);
+            if (end - start == 1) {
+                canvas.drawCircle(sorted[start * 2], sorted[start * 2 + 1], radius, mPaint);
+            } else {
+                mPaint.setStrokeCap(Paint.Cap.ROUND);
+                mPaint.setStrokeWidth(radius * 2f);
+                canvas.drawPoints(sorted, start * 2, (end - start) * 2, mPaint);
+            }
+            start = end;
+        }
+        mPaint.setStrokeCap(cap);
+        mPaint.setStrokeWidth(strokeWidth);
+    }
+
+    /**
+     * Draws circles sorted by radius rounded to {@link #DOT_RADIUS_STEP}. Circles of the same
+     * rounded radius are drawn with a single
+     * {@link Canvas#drawPoints(float[], int, int, Paint)} call using round caps.
+     */
+    private void fillCirclesQuantized(
+            @NonNull final Canvas canvas,
+            @NonNull final float[] centers,
+            @NonNull final float[] radiuses,
+            final int count) {
+        float minRadius = radiuses[0];
+        float maxRadius = radiuses[0];
+        for (int i = 1; i < count; i++) {
+            final float radius = radiuses[i];
+            if (radius < minRadius) {
+                minRadius = radius;
+            } else if (radius > maxRadius) {
+                maxRadius = radius;
+            }
+        }
+        final int steps = radiusStep(maxRadius, minRadius) + 1;
+        if (mRadiusOffsets.length < steps) {
+            mRadiusOffsets = new int[steps];
+        }
+        if (mSortedCenters.length < count * 2) {
+            mSortedCenters = new float[centers.length];
+        }
+
+        final int[] offsets = mRadiusOffsets;
+        for (int s = 0; s < steps; s++) {
+            offsets[s] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            offsets[radiusStep(radiuses[i], minRadius)]++;
+        }
+
+        // Turn counts into step end offsets, then scatter in reverse to get start offsets
+        for (int s = 1; s < steps; s++) {
+            offsets[s] += offsets[s - 1];
+        }
+        final float[] sorted = mSortedCenters;
+        for (int i = count - 1; i >= 0; i--) {
+            final int target = --offsets[radiusStep(radiuses[i], minRadius)] * 2;
+            sorted[target] = centers[i * 2];
+            sorted[target + 1] = centers[i * 2 + 1];
+        }
+
+        final Paint.Cap cap = mPaint.getStrokeCap();
+        final float strokeWidth = mPaint.getStrokeWidth();
+        for (int s = 0; s < steps; s++) {
+            final int start = offsets[s];
+            final int end = s + 1 < steps ? offsets[s + 1] : count;
+            final float radius = minRadius + s * DOT_RADIUS_STEP;
+            if (end - start == 1) {
+                canvas.drawCircle(sorted[start * 2], sorted[start * 2 + 1], radius, mPaint);
+            } else if (end != start) {
+                mPaint.setStrokeCap(Paint.Cap.ROUND);
+                mPaint.setStrokeWidth(radius * 2f);
+                canvas.drawPoints(sorted, start * 2, (end - start) * 2, mPaint);
+            }
+        }
+        mPaint.setStrokeCap(cap);
+        mPaint.setStrokeWidth(strokeWidth);
+    }
+
+    /**
+     * Returns the number of {@link #DOT_RADIUS_STEP} steps the radius is above the minimum,
+     * rounded to the nearest step
+     *
+     * @param radius    the radius
+     * @param minRadius the minimum radius
+     * @return the step index
+     */
+    private static int radiusStep(final float radius, final float minRadius) {
+        return (int) ((radius - minRadius) / DOT_RADIUS_STEP + 0.5f);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Restoring brings back the anti-aliasing the paint had when it was disabled, which may have
+     * been turned off by the user.
+     */
+    @Override
+    public void setAntiAlias(final boolean antiAlias) {
+        if (!antiAlias) {
+            if (!mAntiAliasDisabled) {
+                mAntiAliasDisabled = true;
+                mRestoredAntiAlias = mPaint.isAntiAlias();
+            }
+            mPaint.setAntiAlias(false);
+        } else if (mAntiAliasDisabled) {
+            mAntiAliasDisabled = false;
+            mPaint.setAntiAlias(mRestoredAntiAlias);
+        }
+    }
+
+    private boolean fillCirclesFromSprites(
+            @NonNull final Canvas canvas,
+            @NonNull final float[] centers,
+            @NonNull final float[] radiuses,
+            final int count) {
+        final DotSpriteAtlas sprites = mDotSprites;
+        if (!sprites.isBuilt()) {
+            if (mDotSpritesTooLarge) {
+                return false;
+            }
+            if (!sprites.build(mMinDotRadius, mMaxDotRadius)) {
+                mDotSpritesTooLarge = true;
+                return false;
+            }
+        }
+
+        final boolean filterBitmap = mPaint.isFilterBitmap();
+        mPaint.setFilterBitmap(true);
+        for (int i = 0; i < count; i++) {
+            final float radius = radiuses[i];
+            if (sprites.hasSprite(radius)) {
+                sprites.draw(canvas, centers[i * 2], centers[i * 2 + 1], radius, mPaint);
+            } else {
+                // Placed before the range changed and not respawned yet
+                canvas.drawCircle(centers[i * 2], centers[i * 2 + 1], radius, mPaint);
+            }
+        }
+        mPaint.setFilterBitmap(filterBitmap);
+        return true;
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.annotation.TargetApi;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+
+/**
+ * Schedules {@link SceneController} frames with the {@link FrameTicker} of the thread, so that
+ * frames are stepped at most once per vsync and by the vsync timestamp, and all particle
+ * instances of the thread are stepped from a single {@link Choreographer} frame callback.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class ChoreographerFrameScheduler implements FrameTicker.Client {
+
+    private final FrameTicker mTicker;
+    private final SceneController mController;
+
+    @Nullable
+    private final Drawable mDrawable;
+
+    private ChoreographerFrameScheduler(
+            @NonNull final FrameTicker ticker,
+            @NonNull final SceneController controller,
+            @Nullable final Drawable drawable) {
+        mTicker = ticker;
+        mController = controller;
+        mDrawable = drawable;
+    }
+
+    /**
+     * Creates the scheduler for the calling thread if {@link Choreographer} is available.
+     *
+     * @param controller the {@link SceneController} to run frames of
+     * @return the scheduler or null if the API level is lower than 16 or the calling thread has
+     * no {@link Looper}, in which case delay based scheduling should be used.
+     */
+    @Nullable
+    static ChoreographerFrameScheduler createIfSupported(
+            @NonNull final SceneController controller) {
+        return createIfSupported(controller, null);
+    }
+
+    /**
+     * Same as {@link #createIfSupported(SceneController)}, but frames are dropped while the
+     * drawable has no callback or is not visible. Call {@link #resumeIfDropped()} when the
+     * drawable is drawn to resume.
+     *
+     * @param controller the {@link SceneController} to run frames of
+     * @param drawable   the drawable the controller draws to
+     * @return the scheduler or null if not supported
+     */
+    @Nullable
+    static ChoreographerFrameScheduler createIfSupported(
+            @NonNull final SceneController controller,
+            @Nullable final Drawable drawable) {
+        final FrameTicker ticker = FrameTicker.getInstanceIfSupported();
+        return ticker != null
+                ? new ChoreographerFrameScheduler(ticker, controller, drawable)
+                : null;
+    }
+
+    /**
+     * Schedules next frame on the first vsync after the delay.
+     *
+     * @param delay the minimum delay in milliseconds
+     */
+    void scheduleNextFrame(final long delay) {
+        mTicker.schedule(this, delay);
+    }
+
+    void unscheduleNextFrame() {
+        mTicker.unschedule(this);
+    }
+
+    /**
+     * Schedules the next frame if the controller is running but its frames were dropped.
+     */
+    void resumeIfDropped() {
+        if (mController.isRunning() && !mTicker.isScheduled(this)) {
+            mTicker.schedule(this, 0L);
+        }
+    }
+
+    @Override
+    public boolean isTickable() {
+        return mDrawable == null
+                || (mDrawable.getCallback() != null && mDrawable.isVisible());
+    }
+
+    @Override
+    public void onTick(final long frameTimeMillis) {
+        mController.run(frameTimeMillis);
+    }
+}
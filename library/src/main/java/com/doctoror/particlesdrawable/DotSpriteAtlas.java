@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+/**
+ * Pre-rendered anti-aliased dots for every radius in a range, with 0.01 px steps, which is the
+ * precision of radiuses made by {@link SceneController}.
+ *
+ * Sprites are rendered into an {@link Bitmap.Config#ALPHA_8} bitmap, so they are tinted with the
+ * paint color when drawn, and dot color or alpha changes do not require rebuilding.
+ */
+final class DotSpriteAtlas {
+
+    /**
+     * Radius step between sprites
+     */
+    private static final float RADIUS_STEP = 0.01f;
+
+    /**
+     * Atlas bitmap size limit in pixels. Ranges that need more use regular circles.
+     */
+    @VisibleForTesting
+    static final int MAX_PIXELS = 1024 * 1024;
+
+    private final Rect mSrc = new Rect();
+    private final RectF mDst = new RectF();
+
+    @Nullable
+    private Bitmap mBitmap;
+
+    private float mMinRadius;
+    private float mMaxRadius;
+
+    private int mSpritesCount;
+    private int mColumns;
+    private int mCellSize;
+
+    /**
+     * Returns whether the atlas is built and can be drawn from.
+     *
+     * @return true if built
+     */
+    boolean isBuilt() {
+        return mBitmap != null;
+    }
+
+    /**
+     * Returns whether the radius is within the range the atlas was built for.
+     *
+     * @param radius the radius to look up
+     * @return true if there is a sprite for the radius
+     */
+    boolean hasSprite(final float radius) {
+        return radius > mMinRadius - RADIUS_STEP / 2f && radius < mMaxRadius + RADIUS_STEP / 2f;
+    }
+
+    /**
+     * Draws a sprite of the closest radius centered at the specified point. The radius must be
+     * within the range passed to {@link #build(float, float)}.
+     */
+    void draw(@NonNull final Canvas canvas,
+            final float cx,
+            final float cy,
+            final float radius,
+            @NonNull final Paint paint) {
+        final Bitmap bitmap = mBitmap;
+        if (bitmap == null) {
+            throw new IllegalStateException("Atlas is not built");
+        }
+        final int index = spriteIndex(radius);
+        final int left = (index % mColumns) * mCellSize;
+        final int top = (index / mColumns) * mCellSize;
+        mSrc.set(left, top, left + mCellSize, top + mCellSize);
+
+        final float half = mCellSize / 2f;
+        mDst.set(cx - half, cy - half, cx + half, cy + half);
+        canvas.drawBitmap(bitmap, mSrc, mDst, paint);
+    }
+
+    /**
+     * Releases the atlas bitmap.
+     */
+    void recycle() {
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+        }
+    }
+
+    @VisibleForTesting
+    int getSpritesCount() {
+        return mSpritesCount;
+    }
+
+    @VisibleForTesting
+    int spriteIndex(final float radius) {
+        final int index = Math.round((radius - mMinRadius) / RADIUS_STEP);
+        return index < 0 ? 0 : index >= mSpritesCount ? mSpritesCount - 1 : index;
+    }
+
+    /**
+     * Renders sprites for every radius in the range, releasing the previous ones.
+     *
+     * @param minRadius the smallest radius to be drawn
+     * @param maxRadius the largest radius to be drawn
+     * @return false if the range needs an atlas larger than {@link #MAX_PIXELS}, in which case
+     * the atlas is left not built
+     */
+    boolean build(final float minRadius, final float maxRadius) {
+        recycle();
+
+        final int spritesCount = Math.round((maxRadius - minRadius) / RADIUS_STEP) + 1;
+
+        // One pixel of padding on each side for anti-aliasing
+        final int cellSize = (int) Math.ceil(maxRadius * 2f) + 2;
+        final int columns = Math.max(1, Math.min(spritesCount,
+                (int) Math.ceil(Math.sqrt(spritesCount))));
+        final int rows = (spritesCount + columns - 1) / columns;
+        if ((long) columns * rows * cellSize * cellSize > MAX_PIXELS) {
+            return false;
+        }
+
+        final Bitmap bitmap = Bitmap.createBitmap(
+                columns * cellSize, rows * cellSize, Bitmap.Config.ALPHA_8);
+        final Canvas canvas = new Canvas(bitmap);
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        final float half = cellSize / 2f;
+        for (int i = 0; i < spritesCount; i++) {
+            final float radius = minRadius + i * RADIUS_STEP;
+            canvas.drawCircle(
+                    (i % columns) * cellSize + half,
+                    (i / columns) * cellSize + half,
+                    radius,
+                    paint);
+        }
+
+        mBitmap = bitmap;
+        mMinRadius = minRadius;
+        mMaxRadius = maxRadius;
+        mSpritesCount = spritesCount;
+        mColumns = columns;
+        mCellSize = cellSize;
+        return true;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.view.Choreographer;
+
+/**
+ * Drives all scheduled {@link Client}s of a thread from a single {@link Choreographer} frame
+ * callback. Clients that are due in the same frame are ticked one after another with the same
+ * frame time, so that they stay phase aligned and the thread wakes up once per frame no matter
+ * how many particle instances are animating.
+ *
+ * Must only be used on the thread it was obtained on.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+final class FrameTicker implements Choreographer.FrameCallback {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private static final ThreadLocal<FrameTicker> sInstances = new ThreadLocal<FrameTicker>();
+
+    interface Client {
+
+        /**
+         * Returns whether the client should still be ticked when due. Clients that are not, for
+         * example when detached or invisible, are dropped without ticking and must schedule
+         * again to resume.
+         *
+         * @return whether the client should still be ticked
+         */
+        boolean isTickable();
+
+        /**
+         * Called when the client is due. The client is no longer scheduled at this point.
+         *
+         * @param frameTimeMillis the frame time in {@link android.os.SystemClock#uptimeMillis()}
+         *                        time base
+         */
+        void onTick(long frameTimeMillis);
+    }
+
+    private final Choreographer mChoreographer;
+
+    private Client[] mClients = new Client[4];
+    private long[] mDueTimes = new long[4];
+    private int mSize;
+
+    /**
+     * Clients being ticked by {@link #doFrame(long)}
+     */
+    private Client[] mDueClients = new Client[4];
+
+    /**
+     * Whether {@link #doFrame(long)} is ticking clients, which will post the next callback
+     */
+    private boolean mTicking;
+
+    private boolean mCallbackPosted;
+    private long mCallbackDueTime;
+
+    @VisibleForTesting
+    FrameTicker(@NonNull final Choreographer choreographer) {
+        mChoreographer = choreographer;
+    }
+
+    /**
+     * Returns the ticker of the calling thread if {@link Choreographer} is available.
+     *
+     * @return the ticker or null if the API level is lower than 16 or the calling thread has no
+     * {@link Looper}
+     */
+    @Nullable
+    static FrameTicker getInstanceIfSupported() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN
+                || Looper.myLooper() == null) {
+            return null;
+        }
+        FrameTicker ticker = sInstances.get();
+        if (ticker == null) {
+            ticker = new FrameTicker(Choreographer.getInstance());
+            sInstances.set(ticker);
+        }
+        return ticker;
+    }
+
+    /**
+     * Schedules the client to be ticked on the first frame after the delay, replacing the
+     * previous schedule of the client, if any.
+     *
+     * @param client the client to tick
+     * @param delay  the minimum delay in milliseconds
+     */
+    void schedule(@NonNull final Client client, final long delay) {
+        final long dueTime = System.nanoTime() + delay * NANOS_PER_MILLI;
+        final int index = indexOf(client);
+        if (index != -1) {
+            mDueTimes[index] = dueTime;
+        } else {
+            ensureCapacity(mSize + 1);
+            mClients[mSize] = client;
+            mDueTimes[mSize] = dueTime;
+            mSize++;
+        }
+        if (!mTicking) {
+            postCallback();
+        }
+    }
+
+    /**
+     * Removes the client from scheduled clients, if it was scheduled.
+     *
+     * @param client the client to remove
+     */
+    void unschedule(@NonNull final Client client) {
+        final int index = indexOf(client);
+        if (index != -1) {
+            removeAt(index);
+            if (mSize == 0 && mCallbackPosted) {
+                mChoreographer.removeFrameCallback(this);
+                mCallbackPosted = false;
+            }
+        }
+    }
+
+    boolean isScheduled(@NonNull final Client client) {
+        return indexOf(client) != -1;
+    }
+
+    @Override
+    public void doFrame(final long frameTimeNanos) {
+        mCallbackPosted = false;
+        final long now = System.nanoTime();
+
+        // Take due clients out first, as ticking schedules them again
+        int dueCount = 0;
+        for (int i = 0; i < mSize; ) {
+            // Frames may come up to a millisecond early, as delays are posted in milliseconds
+            if (mDueTimes[i] - now < NANOS_PER_MILLI) {
+                if (mDueClients.length == dueCount) {
+                    final Client[] dueClients = new Client[dueCount * 2];
+                    System.arraycopy(mDueClients, 0, dueClients, 0, dueCount);
+                    mDueClients = dueClients;
+                }
+                mDueClients[dueCount++] = mClients[i];
+                removeAt(i);
+            } else {
+                i++;
+            }
+        }
+
+        mTicking = true;
+        try {
+            final long frameTimeMillis = frameTimeNanos / NANOS_PER_MILLI;
+            for (int i = 0; i < dueCount; i++) {
+                final Client client = mDueClients[i];
+                mDueClients[i] = null;
+                if (client.isTickable()) {
+                    client.onTick(frameTimeMillis);
+                }
+            }
+        } finally {
+            mTicking = false;
+        }
+        postCallback();
+    }
+
+    /**
+     * Posts the frame callback for the earliest due client, unless already posted for it.
+     */
+    private void postCallback() {
+        if (mSize == 0) {
+            return;
+        }
+        long dueTime = mDueTimes[0];
+        for (int i = 1; i < mSize; i++) {
+            dueTime = Math.min(dueTime, mDueTimes[i]);
+        }
+        if (mCallbackPosted && mCallbackDueTime <= dueTime) {
+            return;
+        }
+        final long delay = Math.max(dueTime - System.nanoTime(), 0L) / NANOS_PER_MILLI;
+        mChoreographer.removeFrameCallback(this);
+        mChoreographer.postFrameCallbackDelayed(this, delay);
+        mCallbackPosted = true;
+        mCallbackDueTime = dueTime;
+    }
+
+    private int indexOf(@NonNull final Client client) {
+        for (int i = 0; i < mSize; i++) {
+            if (mClients[i] == client) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the client at index by moving the last one in its place
+     */
+    private void removeAt(final int index) {
+        final int last = --mSize;
+        mClients[index] = mClients[last];
+        mDueTimes[index] = mDueTimes[last];
+        mClients[last] = null;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > mClients.length) {
+            final int newCapacity = Math.max(capacity, mClients.length * 2);
+
+            final Client[] clients = new Client[newCapacity];
+            System.arraycopy(mClients, 0, clients, 0, mSize);
+            mClients = clients;
+
+            final long[] dueTimes = new long[newCapacity];
+            System.arraycopy(mDueTimes, 0, dueTimes, 0, mSize);
+            mDueTimes = dueTimes;
+        }
+    }
+}
@@ -19,10 +19,14 @@ import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
 import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
+import android.graphics.Rect;
 import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
 import android.os.SystemClock;
@@ -44,7 +48,37 @@ public class ParticlesDrawable extends Drawable
         implements Animatable, IParticlesView, SceneScheduler, ParticlesScene {
 
     private final CanvasParticlesView mCanvasParticlesView = new CanvasParticlesView();
-    private final SceneController mController = new SceneController(this, this);
+    private final SceneController mController = new SceneController(this, this,
+            new MonotonicClock(), Resources.getSystem().getDisplayMetrics().density);
+
+    /**
+     * Vsync aligned frame scheduling, or null if not supported, in which case frames are
+     * scheduled with {@link #scheduleSelf(Runnable, long)}.
+     */
+    @Nullable
+    private final ChoreographerFrameScheduler mFrameScheduler
+            = ChoreographerFrameScheduler.createIfSupported(mController, this);
+
+    private boolean mStaticFrameCachingEnabled = Defaults.DEFAULT_STATIC_FRAME_CACHING_ENABLED;
+
+    /**
+     * The latest frame drawn while stopped, when static frame caching is enabled
+     */
+    @Nullable
+    private Bitmap mStaticFrame;
+
+    @Nullable
+    private Canvas mStaticFrameCanvas;
+
+    /**
+     * Whether the scene has changed since {@link #mStaticFrame} was drawn
+     */
+    private boolean mStaticFrameDirty = true;
+
+    public ParticlesDrawable() {
+        mCanvasParticlesView.setDotRadiusRange(
+                mController.getMinDotRadius(), mController.getMaxDotRadius());
+    }
 
     @Override
     public void inflate(@NonNull final Resources r,
@@ -52,28 +86,387 @@ public class ParticlesDrawable extends Drawable
             @NonNull final AttributeSet attrs,
             @Nullable final Resources.Theme theme) throws XmlPullParserException, IOException {
         super.inflate(r, parser, attrs, theme);
-        mController.inflate(r, attrs);
+        final TypedArray a = r.obtainAttributes(attrs, R.styleable.ParticlesView);
+        try {
+            SceneControllerAttrs.handleAttrs(mController, a);
+            mCanvasParticlesView.handleAttrs(a);
+            handleAttrs(a);
+        } finally {
+            a.recycle();
+        }
+        mCanvasParticlesView.setDotRadiusRange(
+                mController.getMinDotRadius(), mController.getMaxDotRadius());
+    }
+
+    private void handleAttrs(@NonNull final TypedArray a) {
+        final int count = a.getIndexCount();
+        for (int i = 0; i < count; i++) {
+            final int attr = a.getIndex(i);
+            if (attr == R.styleable.ParticlesView_staticFrameCachingEnabled) {
+                setStaticFrameCachingEnabled(a.getBoolean(attr,
+                        Defaults.DEFAULT_STATIC_FRAME_CACHING_ENABLED));
+            }
+        }
+        invalidateStaticFrame();
     }
 
     @NonNull
     @Keep
     public Paint getPaint() {
+        // The paint may be modified by the caller
+        invalidateStaticFrame();
         return mCanvasParticlesView.getPaint();
     }
 
+    /**
+     * Sets the number of alpha levels connection lines are quantized to. Lines of the same level
+     * are drawn with a single draw call, which is significantly faster for dense scenes. 16 or 32
+     * levels are usually indistinguishable from exact alpha. 0 disables quantization, which is
+     * the default.
+     *
+     * @param buckets the number of alpha levels, 0 or in [2:256] range
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    @Keep
+    public void setLineAlphaBuckets(@IntRange(from = 0, to = 256) final int buckets) {
+        mCanvasParticlesView.setLineAlphaBuckets(buckets);
+        invalidateStaticFrame();
+    }
+
+    /**
+     * Returns the number of alpha levels connection lines are quantized to, 0 if disabled.
+     *
+     * @return the number of alpha levels connection lines are quantized to
+     */
+    @Keep
+    public int getLineAlphaBuckets() {
+        return mCanvasParticlesView.getLineAlphaBuckets();
+    }
+
+    /**
+     * Enables drawing connection lines as a single mesh of thin quads, with exact alpha of every
+     * line and a single draw call per frame. Mesh lines are not anti-aliased. Requires software
+     * rendering or API 29 and above, otherwise has no effect. Disabled by default.
+     *
+     * @param enabled whether to draw connection lines as a mesh
+     */
+    @Keep
+    public void setLineMeshEnabled(final boolean enabled) {
+        mCanvasParticlesView.setLineMeshEnabled(enabled);
+        invalidateStaticFrame();
+    }
+
+    /**
+     * Returns whether connection lines are drawn as a single mesh.
+     *
+     * @return whether connection lines are drawn as a single mesh
+     */
+    @Keep
+    public boolean isLineMeshEnabled() {
+        return mCanvasParticlesView.isLineMeshEnabled();
+    }
+
+    /**
+     * Enables rounding dot radiuses to 1/8 of a pixel, so that dots of close radiuses are drawn
+     * with a single draw call, which is faster for scenes with many dots. When disabled, dots
+     * keep exact radiuses and only dots of equal radiuses share a draw call. Disabled by default.
+     *
+     * @param enabled whether to round dot radiuses
+     */
+    @Keep
+    public void setDotRadiusQuantizationEnabled(final boolean enabled) {
+        mCanvasParticlesView.setDotRadiusQuantizationEnabled(enabled);
+        invalidateStaticFrame();
+    }
+
+    /**
+     * Returns whether dot radiuses are rounded to 1/8 of a pixel.
+     *
+     * @return whether dot radiuses are rounded to 1/8 of a pixel
+     */
+    @Keep
+    public boolean isDotRadiusQuantizationEnabled() {
+        return mCanvasParticlesView.isDotRadiusQuantizationEnabled();
+    }
+
+    /**
+     * Enables drawing dots from pre-rendered sprites instead of rasterizing every dot as a circle
+     * each frame. Sprites take a few kilobytes of memory for the default radius range. Disabled
+     * by default.
+     *
+     * @param enabled whether to draw dots from pre-rendered sprites
+     */
+    @Keep
+    public void setDotSpritesEnabled(final boolean enabled) {
+        mCanvasParticlesView.setDotSpritesEnabled(enabled);
+        invalidateStaticFrame();
+    }
+
+    /**
+     * Returns whether dots are drawn from pre-rendered sprites.
+     *
+     * @return whether dots are drawn from pre-rendered sprites
+     */
+    @Keep
+    public boolean isDotSpritesEnabled() {
+        return mCanvasParticlesView.isDotSpritesEnabled();
+    }
+
+    /**
+     * Enables advancing particles on a background thread while running. Particle positions are
+     * published to the drawing thread as snapshots, so the drawing thread only draws. Disabled by
+     * default.
+     *
+     * @param enabled whether to advance particles on a background thread
+     */
+    @Keep
+    public void setBackgroundSimulationEnabled(final boolean enabled) {
+        mController.setBackgroundSimulationEnabled(enabled);
+    }
+
+    /**
+     * Returns whether particles are advanced on a background thread while running.
+     *
+     * @return whether particles are advanced on a background thread
+     */
+    @Keep
+    public boolean isBackgroundSimulationEnabled() {
+        return mController.isBackgroundSimulationEnabled();
+    }
+
+    /**
+     * Sets the number of threads that step particles and find connection lines while running.
+     * Scenes of many hundreds of dots and more are split between a pool of worker threads and
+     * the thread that runs frames. Frames are the same for any parallelism. Defaults to 1,
+     * which runs everything on the thread that runs frames.
+     *
+     * @param parallelism the number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    @Keep
+    public void setParallelism(@IntRange(from = 1) final int parallelism) {
+        mController.setParallelism(parallelism);
+    }
+
+    /**
+     * Returns the number of threads that step particles and find connection lines.
+     *
+     * @return the number of threads
+     */
+    @Keep
+    public int getParallelism() {
+        return mController.getParallelism();
+    }
+
+    /**
+     * Enables reusing connection line candidates across frames. Candidates are dot pairs closer
+     * than the line distance plus the skin, and they are searched for again only after dots
+     * moved farther than half of the skin, so most frames only test the candidates. A larger
+     * skin rebuilds less often, but tests more candidates. Defaults to 0, which searches for
+     * lines every frame.
+     *
+     * @param skin the skin distance in pixels
+     * @throws IllegalArgumentException if skin is negative
+     */
+    @Keep
+    public void setNeighborListSkin(@FloatRange(from = 0) final float skin) {
+        mController.setNeighborListSkin(skin);
+    }
+
+    /**
+     * Returns the skin distance of connection line candidates, or 0 if lines are searched for
+     * every frame.
+     *
+     * @return the skin distance in pixels
+     */
+    @Keep
+    public float getNeighborListSkin() {
+        return mController.getNeighborListSkin();
+    }
+
+    /**
+     * Sets the strategy of finding dot pairs to connect with lines. Every strategy finds the
+     * same lines. Defaults to {@link PairFinder#GRID}.
+     *
+     * @param pairFinder one of {@link PairFinder#GRID} and {@link PairFinder#SWEEP_AND_PRUNE}
+     * @throws IllegalArgumentException if the strategy is unknown
+     */
+    @Keep
+    public void setPairFinder(final int pairFinder) {
+        mController.setPairFinder(pairFinder);
+    }
+
+    /**
+     * Returns the strategy of finding dot pairs to connect with lines.
+     *
+     * @return one of {@link PairFinder#GRID} and {@link PairFinder#SWEEP_AND_PRUNE}
+     */
+    @Keep
+    public int getPairFinder() {
+        return mController.getPairFinder();
+    }
+
+    /**
+     * Enables lowering the quality when the average frame cost exceeds the target frame budget,
+     * and raising it back when frames get cheap enough. See
+     * {@link OnQualityLevelChangeListener} for the quality levels. Disabling returns to full
+     * quality. Disabled by default.
+     *
+     * @param enabled whether to adapt quality to the frame cost
+     * @see #setTargetFrameBudget(int)
+     */
+    @Keep
+    public void setAdaptiveQualityEnabled(final boolean enabled) {
+        mController.setAdaptiveQualityEnabled(enabled);
+        invalidateStaticFrame();
+    }
+
+    /**
+     * Returns whether the quality is adapted to the frame cost.
+     *
+     * @return whether the quality is adapted to the frame cost
+     */
+    @Keep
+    public boolean isAdaptiveQualityEnabled() {
+        return mController.isAdaptiveQualityEnabled();
+    }
+
+    /**
+     * Sets the time that simulating and drawing a frame on the drawing thread is expected to
+     * take, used when adaptive quality is enabled.
+     *
+     * @param millis the frame budget in milliseconds
+     * @throws IllegalArgumentException if millis is less than 1
+     */
+    @Keep
+    public void setTargetFrameBudget(@IntRange(from = 1) final int millis) {
+        mController.setTargetFrameBudget(millis);
+    }
+
+    /**
+     * Returns the target frame budget in milliseconds.
+     *
+     * @return the target frame budget in milliseconds
+     */
+    @Keep
+    public int getTargetFrameBudget() {
+        return mController.getTargetFrameBudget();
+    }
+
+    /**
+     * Returns the current quality level, one of {@link OnQualityLevelChangeListener} constants.
+     *
+     * @return the current quality level
+     */
+    @Keep
+    public int getQualityLevel() {
+        return mController.getQualityLevel();
+    }
+
+    /**
+     * Sets the listener to be notified when adaptive quality changes the quality level.
+     *
+     * @param l the listener, or null to remove
+     */
+    @Keep
+    public void setOnQualityLevelChangeListener(@Nullable final OnQualityLevelChangeListener l) {
+        mController.setOnQualityLevelChangeListener(l);
+    }
+
+    /**
+     * Enables drawing the frame into a cached bitmap while the drawable is stopped, so that
+     * redrawing a static frame is a single bitmap draw. The cache is redrawn when the scene,
+     * bounds, alpha, color filter or paint change, and released when started. Takes four bytes
+     * per pixel of bounds while stopped. Disabled by default.
+     *
+     * @param enabled whether to cache the frame while stopped
+     */
+    @Keep
+    public void setStaticFrameCachingEnabled(final boolean enabled) {
+        mStaticFrameCachingEnabled = enabled;
+        if (!enabled) {
+            recycleStaticFrame();
+        }
+    }
+
+    /**
+     * Returns whether the frame is cached while stopped.
+     *
+     * @return whether the frame is cached while stopped
+     */
+    @Keep
+    public boolean isStaticFrameCachingEnabled() {
+        return mStaticFrameCachingEnabled;
+    }
+
     @Override
     public void setBounds(final int left, final int top, final int right, final int bottom) {
         super.setBounds(left, top, right, bottom);
         mController.setBounds(left, top, right, bottom);
+        invalidateStaticFrame();
     }
 
     @Override
     public void draw(@NonNull final Canvas canvas) {
+        if (mFrameScheduler != null) {
+            // Frames are dropped while detached or invisible, being drawn means neither
+            mFrameScheduler.resumeIfDropped();
+        }
+        if (mStaticFrameCachingEnabled && !mController.isRunning()) {
+            drawStaticFrame(canvas);
+        } else {
+            drawFrame(canvas);
+        }
+    }
+
+    private void drawFrame(@NonNull final Canvas canvas) {
         mCanvasParticlesView.setCanvas(canvas);
         mController.draw();
         mCanvasParticlesView.setCanvas(null);
     }
 
+    private void drawStaticFrame(@NonNull final Canvas canvas) {
+        final Rect bounds = getBounds();
+        final int width = bounds.width();
+        final int height = bounds.height();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        Bitmap frame = mStaticFrame;
+        if (frame == null || frame.getWidth() != width || frame.getHeight() != height) {
+            recycleStaticFrame();
+            frame = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            // Drawn pixel for pixel regardless of canvas density
+            frame.setDensity(Bitmap.DENSITY_NONE);
+            mStaticFrame = frame;
+            mStaticFrameCanvas = new Canvas(frame);
+            mStaticFrameDirty = true;
+        }
+
+        if (mStaticFrameDirty) {
+            frame.eraseColor(Color.TRANSPARENT);
+            //noinspection ConstantConditions, created along with the bitmap
+            drawFrame(mStaticFrameCanvas);
+            mStaticFrameDirty = false;
+        }
+
+        canvas.drawBitmap(frame, 0f, 0f, null);
+    }
+
+    private void invalidateStaticFrame() {
+        mStaticFrameDirty = true;
+    }
+
+    private void recycleStaticFrame() {
+        if (mStaticFrame != null) {
+            mStaticFrame.recycle();
+            mStaticFrame = null;
+            mStaticFrameCanvas = null;
+        }
+        mStaticFrameDirty = true;
+    }
+
     @Override
     public void drawLine(final float startX, final float startY, final float stopX,
             final float stopY, final float strokeWidth, @ColorInt final int color) {
@@ -86,13 +479,38 @@ public class ParticlesDrawable extends Drawable
         mCanvasParticlesView.fillCircle(cx, cy, radius, color);
     }
 
+    @Override
+    public void drawLines(@NonNull final float[] points, @NonNull final int[] colors,
+            final int count, final float strokeWidth) {
+        mCanvasParticlesView.drawLines(points, colors, count, strokeWidth);
+    }
+
+    @Override
+    public void fillCircles(@NonNull final float[] centers, @NonNull final float[] radiuses,
+            final int count, @ColorInt final int color) {
+        mCanvasParticlesView.fillCircles(centers, radiuses, count, color);
+    }
+
+    @Override
+    public void setAntiAlias(final boolean antiAlias) {
+        mCanvasParticlesView.setAntiAlias(antiAlias);
+    }
+
     @Override
     public void scheduleNextFrame(final long delay) {
-        scheduleSelf(mController, SystemClock.uptimeMillis() + delay);
+        // Without a callback nothing would draw the frames, so let scheduleSelf() ignore it
+        if (mFrameScheduler != null && getCallback() != null) {
+            mFrameScheduler.scheduleNextFrame(delay);
+        } else {
+            scheduleSelf(mController, SystemClock.uptimeMillis() + delay);
+        }
     }
 
     @Override
     public void unscheduleNextFrame() {
+        if (mFrameScheduler != null) {
+            mFrameScheduler.unscheduleNextFrame();
+        }
         unscheduleSelf(mController);
     }
 
@@ -104,6 +522,7 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void setAlpha(final int alpha) {
         mController.setAlpha(alpha);
+        invalidateStaticFrame();
     }
 
     @Override
@@ -114,6 +533,7 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void setColorFilter(final ColorFilter colorFilter) {
         mCanvasParticlesView.setColorFilter(colorFilter);
+        invalidateStaticFrame();
     }
 
     @Override
@@ -124,11 +544,14 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void start() {
         mController.start();
+        // Frames are not cached while running
+        recycleStaticFrame();
     }
 
     @Override
     public void stop() {
         mController.stop();
+        invalidateStaticFrame();
     }
 
     @Override
@@ -142,6 +565,7 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void nextFrame() {
         mController.nextFrame();
+        invalidateStaticFrame();
     }
 
     /**
@@ -150,6 +574,7 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void makeBrandNewFrame() {
         mController.makeBrandNewFrame();
+        invalidateStaticFrame();
     }
 
     /**
@@ -158,6 +583,32 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void makeBrandNewFrameWithPointsOffscreen() {
         mController.makeBrandNewFrameWithPointsOffscreen();
+        invalidateStaticFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSeed(final long seed) {
+        mController.setSeed(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void seek(@IntRange(from = 0) final long timeMillis) {
+        mController.seek(timeMillis);
+        invalidateStaticFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFrameStatsListener(@Nullable final FrameStatsListener listener) {
+        mController.setFrameStatsListener(listener);
     }
 
     /**
@@ -176,6 +627,23 @@ public class ParticlesDrawable extends Drawable
         return mController.getFrameDelay();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSimulationRate(@IntRange(from = 0) final int rate) {
+        mController.setSimulationRate(rate);
+        invalidateStaticFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSimulationRate() {
+        return mController.getSimulationRate();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -199,6 +667,8 @@ public class ParticlesDrawable extends Drawable
     public void setDotRadiusRange(@FloatRange(from = 0.5f) final float minRadius,
             @FloatRange(from = 0.5f) final float maxRadius) {
         mController.setDotRadiusRange(minRadius, maxRadius);
+        mCanvasParticlesView.setDotRadiusRange(minRadius, maxRadius);
+        invalidateStaticFrame();
     }
 
     /**
@@ -223,6 +693,7 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void setLineThickness(@FloatRange(from = 1) final float lineThickness) {
         mController.setLineThickness(lineThickness);
+        invalidateStaticFrame();
     }
 
     /**
@@ -239,6 +710,7 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void setLineDistance(@FloatRange(from = 0) final float lineDistance) {
         mController.setLineDistance(lineDistance);
+        invalidateStaticFrame();
     }
 
     /**
@@ -254,6 +726,7 @@ public class ParticlesDrawable extends Drawable
      */
     public void setNumDots(@IntRange(from = 0) final int newNum) {
         mController.setNumDots(newNum);
+        invalidateStaticFrame();
     }
 
     /**
@@ -269,6 +742,7 @@ public class ParticlesDrawable extends Drawable
      */
     public void setDotColor(@ColorInt final int dotColor) {
         mController.setDotColor(dotColor);
+        invalidateStaticFrame();
     }
 
     /**
@@ -285,6 +759,7 @@ public class ParticlesDrawable extends Drawable
     @Override
     public void setLineColor(@ColorInt final int lineColor) {
         mController.setLineColor(lineColor);
+        invalidateStaticFrame();
     }
 
     /**
@@ -0,0 +1,925 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.ColorInt;
+import android.support.annotation.FloatRange;
+import android.support.annotation.IntRange;
+import android.support.annotation.Keep;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.AttributeSet;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewParent;
+
+/**
+ * The Particles View that draws on its own render thread into a {@link TextureView} surface, so
+ * that simulating and drawing particles does not compete with the rest of the UI on the main
+ * thread.
+ *
+ * Follows the same lifecycle as {@link ParticlesView}: automatically starts when attached to
+ * window, visible and its surface is available, and stops when detached, hidden or when the
+ * surface is destroyed. When {@link #stop()} is called explicitly, the animation will not
+ * automatically restart until {@link #start()} is called.
+ *
+ * Requires a hardware accelerated window. The View is not opaque and does not support
+ * background drawables, so place it over the desired background.
+ */
+@Keep
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+public class ParticlesTextureView extends TextureView
+        implements TextureView.SurfaceTextureListener, ParticlesScene {
+
+    private final CanvasParticlesView mCanvasParticlesView = new CanvasParticlesView();
+
+    /**
+     * Held by the render thread while drawing with {@link #mCanvasParticlesView}, and by other
+     * threads while changing it
+     */
+    private final Object mDrawLock = new Object();
+
+    private final SceneScheduler mRenderScheduler = new RenderScheduler();
+
+    private final SceneController mController = new SceneController(
+            mCanvasParticlesView, mRenderScheduler,
+            new MonotonicClock(), Resources.getSystem().getDisplayMetrics().density);
+
+    private final Runnable mDrawFrameRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            drawFrame();
+        }
+    };
+
+    /**
+     * The thread frames are stepped and drawn on, alive while the surface is available
+     */
+    @Nullable
+    private HandlerThread mRenderThread;
+
+    @Nullable
+    private volatile Handler mRenderHandler;
+
+    /**
+     * Vsync aligned frame scheduling on the render thread, or null if not supported, in which
+     * case frames are scheduled with {@link #mRenderHandler} delays. Frames scheduled from other
+     * threads are also posted with {@link #mRenderHandler}.
+     */
+    @Nullable
+    private volatile ChoreographerFrameScheduler mFrameScheduler;
+
+    /**
+     * Whether explicitly stopped by user. This means it will not start automatically on visibility
+     * change or when attached to window.
+     */
+    @VisibleForTesting
+    boolean mExplicitlyStopped;
+
+    private boolean mAttachedToWindow;
+    private boolean mEmulateOnAttachToWindow;
+
+    public ParticlesTextureView(final Context context) {
+        super(context);
+        init(context, null);
+    }
+
+    public ParticlesTextureView(final Context context, final AttributeSet attrs) {
+        super(context, attrs);
+        init(context, attrs);
+    }
+
+    public ParticlesTextureView(final Context context, final AttributeSet attrs,
+            final int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context, attrs);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    public ParticlesTextureView(final Context context, final AttributeSet attrs,
+            final int defStyleAttr, final int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+        init(context, attrs);
+    }
+
+    private void init(@NonNull final Context context, @Nullable final AttributeSet attrs) {
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+        if (attrs != null) {
+            final TypedArray a = context
+                    .obtainStyledAttributes(attrs, R.styleable.ParticlesView);
+            try {
+                SceneControllerAttrs.handleAttrs(mController, a);
+                mCanvasParticlesView.handleAttrs(a);
+            } finally {
+                a.recycle();
+            }
+        }
+        mCanvasParticlesView.setDotRadiusRange(
+                mController.getMinDotRadius(), mController.getMaxDotRadius());
+    }
+
+    /**
+     * Returns a copy of the {@link Paint} the particles are drawn with. The paint itself is used
+     * by the render thread, so changes to the returned copy have no effect.
+     *
+     * @return a copy of the paint the particles are drawn with
+     */
+    @NonNull
+    @Keep
+    public Paint getPaint() {
+        synchronized (mDrawLock) {
+            return new Paint(mCanvasParticlesView.getPaint());
+        }
+    }
+
+    /**
+     * Sets the number of alpha levels connection lines are quantized to. Lines of the same level
+     * are drawn with a single draw call, which is significantly faster for dense scenes. 16 or 32
+     * levels are usually indistinguishable from exact alpha. 0 disables quantization, which is
+     * the default.
+     *
+     * @param buckets the number of alpha levels, 0 or in [2:256] range
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    @Keep
+    public void setLineAlphaBuckets(@IntRange(from = 0, to = 256) final int buckets) {
+        synchronized (mDrawLock) {
+            mCanvasParticlesView.setLineAlphaBuckets(buckets);
+        }
+        invalidateFrame();
+    }
+
+    /**
+     * Returns the number of alpha levels connection lines are quantized to, 0 if disabled.
+     *
+     * @return the number of alpha levels connection lines are quantized to
+     */
+    @Keep
+    public int getLineAlphaBuckets() {
+        synchronized (mDrawLock) {
+            return mCanvasParticlesView.getLineAlphaBuckets();
+        }
+    }
+
+    /**
+     * Enables drawing connection lines as a single mesh of thin quads, with exact alpha of every
+     * line and a single draw call per frame. Mesh lines are not anti-aliased. Requires software
+     * rendering or API 29 and above, otherwise has no effect. Disabled by default.
+     *
+     * @param enabled whether to draw connection lines as a mesh
+     */
+    @Keep
+    public void setLineMeshEnabled(final boolean enabled) {
+        synchronized (mDrawLock) {
+            mCanvasParticlesView.setLineMeshEnabled(enabled);
+        }
+        invalidateFrame();
+    }
+
+    /**
+     * Returns whether connection lines are drawn as a single mesh.
+     *
+     * @return whether connection lines are drawn as a single mesh
+     */
+    @Keep
+    public boolean isLineMeshEnabled() {
+        synchronized (mDrawLock) {
+            return mCanvasParticlesView.isLineMeshEnabled();
+        }
+    }
+
+    /**
+     * Enables rounding dot radiuses to 1/8 of a pixel, so that dots of close radiuses are drawn
+     * with a single draw call, which is faster for scenes with many dots. When disabled, dots
+     * keep exact radiuses and only dots of equal radiuses share a draw call. Disabled by default.
+     *
+     * @param enabled whether to round dot radiuses
+     */
+    @Keep
+    public void setDotRadiusQuantizationEnabled(final boolean enabled) {
+        synchronized (mDrawLock) {
+            mCanvasParticlesView.setDotRadiusQuantizationEnabled(enabled);
+        }
+        invalidateFrame();
+    }
+
+    /**
+     * Returns whether dot radiuses are rounded to 1/8 of a pixel.
+     *
+     * @return whether dot radiuses are rounded to 1/8 of a pixel
+     */
+    @Keep
+    public boolean isDotRadiusQuantizationEnabled() {
+        synchronized (mDrawLock) {
+            return mCanvasParticlesView.isDotRadiusQuantizationEnabled();
+        }
+    }
+
+    /**
+     * Enables drawing dots from pre-rendered sprites instead of rasterizing every dot as a circle
+     * each frame. Sprites take a few kilobytes of memory for the default radius range. Disabled
+     * by default.
+     *
+     * @param enabled whether to draw dots from pre-rendered sprites
+     */
+    @Keep
+    public void setDotSpritesEnabled(final boolean enabled) {
+        synchronized (mDrawLock) {
+            mCanvasParticlesView.setDotSpritesEnabled(enabled);
+        }
+        invalidateFrame();
+    }
+
+    /**
+     * Returns whether dots are drawn from pre-rendered sprites.
+     *
+     * @return whether dots are drawn from pre-rendered sprites
+     */
+    @Keep
+    public boolean isDotSpritesEnabled() {
+        synchronized (mDrawLock) {
+            return mCanvasParticlesView.isDotSpritesEnabled();
+        }
+    }
+
+    /**
+     * Enables advancing particles on a background thread while running. Particle positions are
+     * published to the drawing thread as snapshots, so the drawing thread only draws. Disabled by
+     * default.
+     *
+     * @param enabled whether to advance particles on a background thread
+     */
+    @Keep
+    public void setBackgroundSimulationEnabled(final boolean enabled) {
+        mController.setBackgroundSimulationEnabled(enabled);
+    }
+
+    /**
+     * Returns whether particles are advanced on a background thread while running.
+     *
+     * @return whether particles are advanced on a background thread
+     */
+    @Keep
+    public boolean isBackgroundSimulationEnabled() {
+        return mController.isBackgroundSimulationEnabled();
+    }
+
+    /**
+     * Sets the number of threads that step particles and find connection lines while running.
+     * Scenes of many hundreds of dots and more are split between a pool of worker threads and
+     * the thread that runs frames. Frames are the same for any parallelism. Defaults to 1,
+     * which runs everything on the thread that runs frames.
+     *
+     * @param parallelism the number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    @Keep
+    public void setParallelism(@IntRange(from = 1) final int parallelism) {
+        mController.setParallelism(parallelism);
+    }
+
+    /**
+     * Returns the number of threads that step particles and find connection lines.
+     *
+     * @return the number of threads
+     */
+    @Keep
+    public int getParallelism() {
+        return mController.getParallelism();
+    }
+
+    /**
+     * Enables reusing connection line candidates across frames. Candidates are dot pairs closer
+     * than the line distance plus the skin, and they are searched for again only after dots
+     * moved farther than half of the skin, so most frames only test the candidates. A larger
+     * skin rebuilds less often, but tests more candidates. Defaults to 0, which searches for
+     * lines every frame.
+     *
+     * @param skin the skin distance in pixels
+     * @throws IllegalArgumentException if skin is negative
+     */
+    @Keep
+    public void setNeighborListSkin(@FloatRange(from = 0) final float skin) {
+        mController.setNeighborListSkin(skin);
+    }
+
+    /**
+     * Returns the skin distance of connection line candidates, or 0 if lines are searched for
+     * every frame.
+     *
+     * @return the skin distance in pixels
+     */
+    @Keep
+    public float getNeighborListSkin() {
+        return mController.getNeighborListSkin();
+    }
+
+    /**
+     * Sets the strategy of finding dot pairs to connect with lines. Every strategy finds the
+     * same lines. Defaults to {@link PairFinder#GRID}.
+     *
+     * @param pairFinder one of {@link PairFinder#GRID} and {@link PairFinder#SWEEP_AND_PRUNE}
+     * @throws IllegalArgumentException if the strategy is unknown
+     */
+    @Keep
+    public void setPairFinder(final int pairFinder) {
+        mController.setPairFinder(pairFinder);
+    }
+
+    /**
+     * Returns the strategy of finding dot pairs to connect with lines.
+     *
+     * @return one of {@link PairFinder#GRID} and {@link PairFinder#SWEEP_AND_PRUNE}
+     */
+    @Keep
+    public int getPairFinder() {
+        return mController.getPairFinder();
+    }
+
+    /**
+     * Enables lowering the quality when the average frame cost exceeds the target frame budget,
+     * and raising it back when frames get cheap enough. See
+     * {@link OnQualityLevelChangeListener} for the quality levels. Disabling returns to full
+     * quality. Disabled by default.
+     *
+     * @param enabled whether to adapt quality to the frame cost
+     * @see #setTargetFrameBudget(int)
+     */
+    @Keep
+    public void setAdaptiveQualityEnabled(final boolean enabled) {
+        mController.setAdaptiveQualityEnabled(enabled);
+    }
+
+    /**
+     * Returns whether the quality is adapted to the frame cost.
+     *
+     * @return whether the quality is adapted to the frame cost
+     */
+    @Keep
+    public boolean isAdaptiveQualityEnabled() {
+        return mController.isAdaptiveQualityEnabled();
+    }
+
+    /**
+     * Sets the time that simulating and drawing a frame on the drawing thread is expected to
+     * take, used when adaptive quality is enabled.
+     *
+     * @param millis the frame budget in milliseconds
+     * @throws IllegalArgumentException if millis is less than 1
+     */
+    @Keep
+    public void setTargetFrameBudget(@IntRange(from = 1) final int millis) {
+        mController.setTargetFrameBudget(millis);
+    }
+
+    /**
+     * Returns the target frame budget in milliseconds.
+     *
+     * @return the target frame budget in milliseconds
+     */
+    @Keep
+    public int getTargetFrameBudget() {
+        return mController.getTargetFrameBudget();
+    }
+
+    /**
+     * Returns the current quality level, one of {@link OnQualityLevelChangeListener} constants.
+     *
+     * @return the current quality level
+     */
+    @Keep
+    public int getQualityLevel() {
+        return mController.getQualityLevel();
+    }
+
+    /**
+     * Sets the listener to be notified when adaptive quality changes the quality level.
+     *
+     * @param l the listener, or null to remove
+     */
+    @Keep
+    public void setOnQualityLevelChangeListener(@Nullable final OnQualityLevelChangeListener l) {
+        mController.setOnQualityLevelChangeListener(l);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void nextFrame() {
+        mController.nextFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void makeBrandNewFrame() {
+        mController.makeBrandNewFrame();
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void makeBrandNewFrameWithPointsOffscreen() {
+        mController.makeBrandNewFrameWithPointsOffscreen();
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSeed(final long seed) {
+        mController.setSeed(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void seek(@IntRange(from = 0) final long timeMillis) {
+        mController.seek(timeMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFrameStatsListener(@Nullable final FrameStatsListener listener) {
+        mController.setFrameStatsListener(listener);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFrameDelay(@IntRange(from = 0) final int delay) {
+        mController.setFrameDelay(delay);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFrameDelay() {
+        return mController.getFrameDelay();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSimulationRate(@IntRange(from = 0) final int rate) {
+        mController.setSimulationRate(rate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSimulationRate() {
+        return mController.getSimulationRate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStepMultiplier(@FloatRange(from = 0) final float stepMultiplier) {
+        mController.setStepMultiplier(stepMultiplier);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getStepMultiplier() {
+        return mController.getStepMultiplier();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setDotRadiusRange(@FloatRange(from = 0.5f) final float minRadius,
+            @FloatRange(from = 0.5f) final float maxRadius) {
+        mController.setDotRadiusRange(minRadius, maxRadius);
+        // Releases the sprites the render thread may be drawing
+        runOnRenderThread(new Runnable() {
+
+            @Override
+            public void run() {
+                mCanvasParticlesView.setDotRadiusRange(minRadius, maxRadius);
+            }
+        });
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getMinDotRadius() {
+        return mController.getMinDotRadius();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getMaxDotRadius() {
+        return mController.getMaxDotRadius();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setLineThickness(@FloatRange(from = 1) final float lineThickness) {
+        mController.setLineThickness(lineThickness);
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getLineThickness() {
+        return mController.getLineThickness();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setLineDistance(@FloatRange(from = 0) final float lineDistance) {
+        mController.setLineDistance(lineDistance);
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public float getLineDistance() {
+        return mController.getLineDistance();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setNumDots(@IntRange(from = 0) final int newNum) {
+        mController.setNumDots(newNum);
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumDots() {
+        return mController.getNumDots();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setDotColor(@ColorInt final int dotColor) {
+        mController.setDotColor(dotColor);
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDotColor() {
+        return mController.getDotColor();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setLineColor(@ColorInt final int lineColor) {
+        mController.setLineColor(lineColor);
+        invalidateFrame();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLineColor() {
+        return mController.getLineColor();
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(@NonNull final SurfaceTexture surface,
+            final int width, final int height) {
+        final HandlerThread thread = new HandlerThread(
+                "ParticlesRenderThread", Process.THREAD_PRIORITY_DISPLAY);
+        thread.start();
+        final Handler handler = new Handler(thread.getLooper());
+        handler.post(new Runnable() {
+
+            @Override
+            public void run() {
+                // Must be created on the render thread to deliver frames to it
+                mFrameScheduler = ChoreographerFrameScheduler.createIfSupported(mController);
+            }
+        });
+        mRenderThread = thread;
+        mRenderHandler = handler;
+
+        mController.setBounds(0, 0, width, height);
+        startInternal();
+        invalidateFrame();
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(@NonNull final SurfaceTexture surface,
+            final int width, final int height) {
+        mController.setBounds(0, 0, width, height);
+        invalidateFrame();
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(@NonNull final SurfaceTexture surface) {
+        stopInternal();
+
+        final Handler handler = mRenderHandler;
+        final HandlerThread thread = mRenderThread;
+        mRenderHandler = null;
+        mRenderThread = null;
+        mFrameScheduler = null;
+        if (handler != null) {
+            handler.removeCallbacksAndMessages(null);
+        }
+        if (thread != null) {
+            thread.quit();
+            // The surface is released once this returns, wait for the frame being drawn
+            joinUninterruptibly(thread);
+        }
+        // Also covers a range change that was posted to the render thread but removed before it
+        // ran. Sprites are rebuilt on the next frame.
+        mCanvasParticlesView.setDotRadiusRange(
+                mController.getMinDotRadius(), mController.getMaxDotRadius());
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(@NonNull final SurfaceTexture surface) {
+        // Frames are drawn by the render thread
+    }
+
+    @Override
+    protected void onVisibilityChanged(@NonNull final View changedView, final int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if (visibility != View.VISIBLE) {
+            stopInternal();
+        } else {
+            startInternal();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttachedToWindow = true;
+        startInternal();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mAttachedToWindow = false;
+        stopInternal();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Start animating. This will clear the explicit control flag if set by {@link #stop()}.
+     * Note that if this View's visibility is not {@link #VISIBLE}, it's not attached to window or
+     * its surface is not available, this will not start animating until the state changes to
+     * meet the requirements above.
+     */
+    @Keep
+    public void start() {
+        mExplicitlyStopped = false;
+        startInternal();
+    }
+
+    /**
+     * Explicilty stop animating. This will stop animating and no animations will start
+     * automatically until you call {@link #start()}.
+     */
+    @Keep
+    public void stop() {
+        mExplicitlyStopped = true;
+        stopInternal();
+    }
+
+    @VisibleForTesting
+    void startInternal() {
+        if (!mExplicitlyStopped && mRenderHandler != null
+                && isVisibleWithAllParents(this) && isAttachedToWindowCompat()) {
+            mController.start();
+        }
+    }
+
+    @VisibleForTesting
+    void stopInternal() {
+        mController.stop();
+    }
+
+    @VisibleForTesting
+    boolean isRunning() {
+        return mController.isRunning();
+    }
+
+    @VisibleForTesting(otherwise = VisibleForTesting.NONE)
+    void setEmulateOnAttachToWindow(final boolean emulateOnAttachToWindow) {
+        mEmulateOnAttachToWindow = emulateOnAttachToWindow;
+    }
+
+    /**
+     * Draws the current frame on the render thread, unless animating, in which case the next
+     * frame will be drawn anyway.
+     */
+    private void invalidateFrame() {
+        if (!mController.isRunning()) {
+            mRenderScheduler.invalidate();
+        }
+    }
+
+    /**
+     * Runs the action on the render thread, or right away if called on it or if there is no
+     * render thread, in which case nothing is being drawn.
+     *
+     * @param action the action to run
+     */
+    private void runOnRenderThread(@NonNull final Runnable action) {
+        final Handler handler = mRenderHandler;
+        if (handler == null || Looper.myLooper() == handler.getLooper()) {
+            action.run();
+        } else {
+            handler.post(action);
+        }
+    }
+
+    /**
+     * Draws the scene into the surface. Must be called on the render thread.
+     */
+    private void drawFrame() {
+        final Canvas canvas = lockCanvas();
+        if (canvas == null) {
+            // The surface is not available
+            return;
+        }
+        try {
+            canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            synchronized (mDrawLock) {
+                mCanvasParticlesView.setCanvas(canvas);
+                try {
+                    // Scene setters may be called on the main thread while drawing
+                    mController.drawSynchronized();
+                } finally {
+                    mCanvasParticlesView.setCanvas(null);
+                }
+            }
+        } finally {
+            unlockCanvasAndPost(canvas);
+        }
+    }
+
+    private static void joinUninterruptibly(@NonNull final Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @SuppressWarnings("SimplifiableIfStatement")
+    private boolean isAttachedToWindowCompat() {
+        if (mEmulateOnAttachToWindow) {
+            return mAttachedToWindow;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return isAttachedToWindow();
+        }
+        return mAttachedToWindow;
+    }
+
+    private boolean isVisibleWithAllParents(@NonNull final View view) {
+        if (view.getVisibility() != VISIBLE) {
+            return false;
+        }
+
+        final ViewParent parent = view.getParent();
+        if (parent instanceof View) {
+            return isVisibleWithAllParents((View) parent);
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs {@link SceneController} frames on the render thread.
+     *
+     * This is not implemented by the View itself, since {@link View#invalidate()} must keep
+     * redrawing the View with the latest surface contents.
+     */
+    private final class RenderScheduler implements SceneScheduler {
+
+        @Override
+        public void scheduleNextFrame(final long delay) {
+            final Handler handler = mRenderHandler;
+            if (handler == null) {
+                return;
+            }
+            // The frame ticker may only be used on the render thread
+            final ChoreographerFrameScheduler frameScheduler = mFrameScheduler;
+            if (frameScheduler != null && Looper.myLooper() == handler.getLooper()) {
+                frameScheduler.scheduleNextFrame(delay);
+            } else {
+                handler.removeCallbacks(mController);
+                handler.postDelayed(mController, delay);
+            }
+        }
+
+        @Override
+        public void unscheduleNextFrame() {
+            final Handler handler = mRenderHandler;
+            if (handler == null) {
+                return;
+            }
+            handler.removeCallbacks(mController);
+            final ChoreographerFrameScheduler frameScheduler = mFrameScheduler;
+            if (frameScheduler != null) {
+                if (Looper.myLooper() == handler.getLooper()) {
+                    frameScheduler.unscheduleNextFrame();
+                } else {
+                    // A frame that is already due will find the controller stopped
+                    handler.post(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            frameScheduler.unscheduleNextFrame();
+                        }
+                    });
+                }
+            }
+        }
+
+        @Override
+        public void invalidate() {
+            final Handler handler = mRenderHandler;
+            if (handler != null) {
+                if (Looper.myLooper() == handler.getLooper()) {
+                    drawFrame();
+                } else {
+                    handler.removeCallbacks(mDrawFrameRunnable);
+                    handler.post(mDrawFrameRunnable);
+                }
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.doctoror.particlesdrawable;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -53,9 +54,18 @@ import android.view.ViewParent;
 public class ParticlesView extends View
         implements IParticlesView, SceneScheduler, ParticlesScene {
 
-    private final SceneController mController = new SceneController(this, this);
+    private final SceneController mController = new SceneController(this, this,
+            new MonotonicClock(), Resources.getSystem().getDisplayMetrics().density);
     private final CanvasParticlesView mCanvasParticlesView = new CanvasParticlesView();
 
+    /**
+     * Vsync aligned frame scheduling, or null if not supported, in which case the next frame is
+     * stepped after drawing and scheduled with a delayed invalidation.
+     */
+    @Nullable
+    private final ChoreographerFrameScheduler mFrameScheduler
+            = ChoreographerFrameScheduler.createIfSupported(mController);
+
     /**
      * Whether explicitly stopped by user. This means it will not start automatically on visibility
      * change or when attached to window.
@@ -97,11 +107,14 @@ public class ParticlesView extends View
             final TypedArray a = context
                     .obtainStyledAttributes(attrs, R.styleable.ParticlesView);
             try {
-                mController.handleAttrs(a);
+                SceneControllerAttrs.handleAttrs(mController, a);
+                mCanvasParticlesView.handleAttrs(a);
             } finally {
                 a.recycle();
             }
         }
+        mCanvasParticlesView.setDotRadiusRange(
+                mController.getMinDotRadius(), mController.getMaxDotRadius());
     }
 
     @NonNull
@@ -110,6 +123,256 @@ public class ParticlesView extends View
         return mCanvasParticlesView.getPaint();
     }
 
+    /**
+     * Sets the number of alpha levels connection lines are quantized to. Lines of the same level
+     * are drawn with a single draw call, which is significantly faster for dense scenes. 16 or 32
+     * levels are usually indistinguishable from exact alpha. 0 disables quantization, which is
+     * the default.
+     *
+     * @param buckets the number of alpha levels, 0 or in [2:256] range
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    @Keep
+    public void setLineAlphaBuckets(@IntRange(from = 0, to = 256) final int buckets) {
+        mCanvasParticlesView.setLineAlphaBuckets(buckets);
+    }
+
+    /**
+     * Returns the number of alpha levels connection lines are quantized to, 0 if disabled.
+     *
+     * @return the number of alpha levels connection lines are quantized to
+     */
+    @Keep
+    public int getLineAlphaBuckets() {
+        return mCanvasParticlesView.getLineAlphaBuckets();
+    }
+
+    /**
+     * Enables drawing connection lines as a single mesh of thin quads, with exact alpha of every
+     * line and a single draw call per frame. Mesh lines are not anti-aliased. Requires software
+     * rendering or API 29 and above, otherwise has no effect. Disabled by default.
+     *
+     * @param enabled whether to draw connection lines as a mesh
+     */
+    @Keep
+    public void setLineMeshEnabled(final boolean enabled) {
+        mCanvasParticlesView.setLineMeshEnabled(enabled);
+    }
+
+    /**
+     * Returns whether connection lines are drawn as a single mesh.
+     *
+     * @return whether connection lines are drawn as a single mesh
+     */
+    @Keep
+    public boolean isLineMeshEnabled() {
+        return mCanvasParticlesView.isLineMeshEnabled();
+    }
+
+    /**
+     * Enables rounding dot radiuses to 1/8 of a pixel, so that dots of close radiuses are drawn
+     * with a single draw call, which is faster for scenes with many dots. When disabled, dots
+     * keep exact radiuses and only dots of equal radiuses share a draw call. Disabled by default.
+     *
+     * @param enabled whether to round dot radiuses
+     */
+    @Keep
+    public void setDotRadiusQuantizationEnabled(final boolean enabled) {
+        mCanvasParticlesView.setDotRadiusQuantizationEnabled(enabled);
+    }
+
+    /**
+     * Returns whether dot radiuses are rounded to 1/8 of a pixel.
+     *
+     * @return whether dot radiuses are rounded to 1/8 of a pixel
+     */
+    @Keep
+    public boolean isDotRadiusQuantizationEnabled() {
+        return mCanvasParticlesView.isDotRadiusQuantizationEnabled();
+    }
+
+    /**
+     * Enables drawing dots from pre-rendered sprites instead of rasterizing every dot as a circle
+     * each frame. Sprites take a few kilobytes of memory for the default radius range. Disabled
+     * by default.
+     *
+     * @param enabled whether to draw dots from pre-rendered sprites
+     */
+    @Keep
+    public void setDotSpritesEnabled(final boolean enabled) {
+        mCanvasParticlesView.setDotSpritesEnabled(enabled);
+    }
+
+    /**
+     * Returns whether dots are drawn from pre-rendered sprites.
+     *
+     * @return whether dots are drawn from pre-rendered sprites
+     */
+    @Keep
+    public boolean isDotSpritesEnabled() {
+        return mCanvasParticlesView.isDotSpritesEnabled();
+    }
+
+    /**
+     * Enables advancing particles on a background thread while running. Particle positions are
+     * published to the drawing thread as snapshots, so the drawing thread only draws. Disabled by
+     * default.
+     *
+     * @param enabled whether to advance particles on a background thread
+     */
+    @Keep
+    public void setBackgroundSimulationEnabled(final boolean enabled) {
+        mController.setBackgroundSimulationEnabled(enabled);
+    }
+
+    /**
+     * Returns whether particles are advanced on a background thread while running.
+     *
+     * @return whether particles are advanced on a background thread
+     */
+    @Keep
+    public boolean isBackgroundSimulationEnabled() {
+        return mController.isBackgroundSimulationEnabled();
+    }
+
+    /**
+     * Sets the number of threads that step particles and find connection lines while running.
+     * Scenes of many hundreds of dots and more are split between a pool of worker threads and
+     * the thread that runs frames. Frames are the same for any parallelism. Defaults to 1,
+     * which runs everything on the thread that runs frames.
+     *
+     * @param parallelism the number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    @Keep
+    public void setParallelism(@IntRange(from = 1) final int parallelism) {
+        mController.setParallelism(parallelism);
+    }
+
+    /**
+     * Returns the number of threads that step particles and find connection lines.
+     *
+     * @return the number of threads
+     */
+    @Keep
+    public int getParallelism() {
+        return mController.getParallelism();
+    }
+
+    /**
+     * Enables reusing connection line candidates across frames. Candidates are dot pairs closer
+     * than the line distance plus the skin, and they are searched for again only after dots
+     * moved farther than half of the skin, so most frames only test the candidates. A larger
+     * skin rebuilds less often, but tests more candidates. Defaults to 0, which searches for
+     * lines every frame.
+     *
+     * @param skin the skin distance in pixels
+     * @throws IllegalArgumentException if skin is negative
+     */
+    @Keep
+    public void setNeighborListSkin(@FloatRange(from = 0) final float skin) {
+        mController.setNeighborListSkin(skin);
+    }
+
+    /**
+     * Returns the skin distance of connection line candidates, or 0 if lines are searched for
+     * every frame.
+     *
+     * @return the skin distance in pixels
+     */
+    @Keep
+    public float getNeighborListSkin() {
+        return mController.getNeighborListSkin();
+    }
+
+    /**
+     * Sets the strategy of finding dot pairs to connect with lines. Every strategy finds the
+     * same lines. Defaults to {@link PairFinder#GRID}.
+     *
+     * @param pairFinder one of {@link PairFinder#GRID} and {@link PairFinder#SWEEP_AND_PRUNE}
+     * @throws IllegalArgumentException if the strategy is unknown
+     */
+    @Keep
+    public void setPairFinder(final int pairFinder) {
+        mController.setPairFinder(pairFinder);
+    }
+
+    /**
+     * Returns the strategy of finding dot pairs to connect with lines.
+     *
+     * @return one of {@link PairFinder#GRID} and {@link PairFinder#SWEEP_AND_PRUNE}
+     */
+    @Keep
+    public int getPairFinder() {
+        return mController.getPairFinder();
+    }
+
+    /**
+     * Enables lowering the quality when the average frame cost exceeds the target frame budget,
+     * and raising it back when frames get cheap enough. See
+     * {@link OnQualityLevelChangeListener} for the quality levels. Disabling returns to full
+     * quality. Disabled by default.
+     *
+     * @param enabled whether to adapt quality to the frame cost
+     * @see #setTargetFrameBudget(int)
+     */
+    @Keep
+    public void setAdaptiveQualityEnabled(final boolean enabled) {
+        mController.setAdaptiveQualityEnabled(enabled);
+    }
+
+    /**
+     * Returns whether the quality is adapted to the frame cost.
+     *
+     * @return whether the quality is adapted to the frame cost
+     */
+    @Keep
+    public boolean isAdaptiveQualityEnabled() {
+        return mController.isAdaptiveQualityEnabled();
+    }
+
+    /**
+     * Sets the time that simulating and drawing a frame on the drawing thread is expected to
+     * take, used when adaptive quality is enabled.
+     *
+     * @param millis the frame budget in milliseconds
+     * @throws IllegalArgumentException if millis is less than 1
+     */
+    @Keep
+    public void setTargetFrameBudget(@IntRange(from = 1) final int millis) {
+        mController.setTargetFrameBudget(millis);
+    }
+
+    /**
+     * Returns the target frame budget in milliseconds.
+     *
+     * @return the target frame budget in milliseconds
+     */
+    @Keep
+    public int getTargetFrameBudget() {
+        return mController.getTargetFrameBudget();
+    }
+
+    /**
+     * Returns the current quality level, one of {@link OnQualityLevelChangeListener} constants.
+     *
+     * @return the current quality level
+     */
+    @Keep
+    public int getQualityLevel() {
+        return mController.getQualityLevel();
+    }
+
+    /**
+     * Sets the listener to be notified when adaptive quality changes the quality level.
+     *
+     * @param l the listener, or null to remove
+     */
+    @Keep
+    public void setOnQualityLevelChangeListener(@Nullable final OnQualityLevelChangeListener l) {
+        mController.setOnQualityLevelChangeListener(l);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -134,6 +397,30 @@ public class ParticlesView extends View
         mController.makeBrandNewFrameWithPointsOffscreen();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSeed(final long seed) {
+        mController.setSeed(seed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void seek(@IntRange(from = 0) final long timeMillis) {
+        mController.seek(timeMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setFrameStatsListener(@Nullable final FrameStatsListener listener) {
+        mController.setFrameStatsListener(listener);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -150,6 +437,22 @@ public class ParticlesView extends View
         return mController.getFrameDelay();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSimulationRate(@IntRange(from = 0) final int rate) {
+        mController.setSimulationRate(rate);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSimulationRate() {
+        return mController.getSimulationRate();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -172,6 +475,7 @@ public class ParticlesView extends View
     public void setDotRadiusRange(@FloatRange(from = 0.5f) final float minRadius,
             @FloatRange(from = 0.5f) final float maxRadius) {
         mController.setDotRadiusRange(minRadius, maxRadius);
+        mCanvasParticlesView.setDotRadiusRange(minRadius, maxRadius);
     }
 
     /**
@@ -276,7 +580,9 @@ public class ParticlesView extends View
         super.onDraw(canvas);
         mCanvasParticlesView.setCanvas(canvas);
         mController.draw();
-        mController.run();
+        if (mFrameScheduler == null) {
+            mController.run();
+        }
         mCanvasParticlesView.setCanvas(null);
     }
 
@@ -292,14 +598,37 @@ public class ParticlesView extends View
         mCanvasParticlesView.fillCircle(cx, cy, radius, color);
     }
 
+    @Override
+    public void drawLines(@NonNull final float[] points, @NonNull final int[] colors,
+            final int count, final float strokeWidth) {
+        mCanvasParticlesView.drawLines(points, colors, count, strokeWidth);
+    }
+
+    @Override
+    public void fillCircles(@NonNull final float[] centers, @NonNull final float[] radiuses,
+            final int count, @ColorInt final int color) {
+        mCanvasParticlesView.fillCircles(centers, radiuses, count, color);
+    }
+
+    @Override
+    public void setAntiAlias(final boolean antiAlias) {
+        mCanvasParticlesView.setAntiAlias(antiAlias);
+    }
+
     @Override
     public void scheduleNextFrame(final long delay) {
-        postInvalidateDelayed(delay);
+        if (mFrameScheduler != null) {
+            mFrameScheduler.scheduleNextFrame(delay);
+        } else {
+            postInvalidateDelayed(delay);
+        }
     }
 
     @Override
     public void unscheduleNextFrame() {
-
+        if (mFrameScheduler != null) {
+            mFrameScheduler.unscheduleNextFrame();
+        }
     }
 
     @Override
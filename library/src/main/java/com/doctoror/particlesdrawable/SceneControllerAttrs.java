@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2017 Yaroslav Mytkalyk
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.doctoror.particlesdrawable;
+
+import android.content.res.TypedArray;
+import android.support.annotation.NonNull;
+
+/**
+ * Applies {@link R.styleable#ParticlesView} attributes to {@link SceneController}
+ */
+final class SceneControllerAttrs {
+
+    private SceneControllerAttrs() {
+        throw new UnsupportedOperationException();
+    }
+
+    static void handleAttrs(
+            @NonNull final SceneController controller,
+            @NonNull final TypedArray a) {
+        final int count = a.getIndexCount();
+        float minDotRadius = controller.getMinDotRadius();
+        float maxDotRadius = controller.getMaxDotRadius();
+        for (int i = 0; i < count; i++) {
+            final int attr = a.getIndex(i);
+            if (attr == R.styleable.ParticlesView_minDotRadius) {
+                minDotRadius = a.getDimension(attr, minDotRadius);
+
+            } else if (attr == R.styleable.ParticlesView_maxDotRadius) {
+                maxDotRadius = a.getDimension(attr, maxDotRadius);
+
+            } else if (attr == R.styleable.ParticlesView_lineThickness) {
+                controller.setLineThickness(
+                        a.getDimension(attr, controller.getLineThickness()));
+
+            } else if (attr == R.styleable.ParticlesView_lineDistance) {
+                controller.setLineDistance(
+                        a.getDimension(attr, controller.getLineDistance()));
+
+            } else if (attr == R.styleable.ParticlesView_numDots) {
+                controller.setNumDots(a.getInteger(attr, Defaults.DEFAULT_DOT_NUMBER));
+
+            } else if (attr == R.styleable.ParticlesView_dotColor) {
+                controller.setDotColor(a.getColor(attr, Defaults.DEFAULT_DOT_COLOR));
+
+            } else if (attr == R.styleable.ParticlesView_lineColor) {
+                controller.setLineColor(a.getColor(attr, Defaults.DEFAULT_LINE_COLOR));
+
+            } else if (attr == R.styleable.ParticlesView_frameDelayMillis) {
+                controller.setFrameDelay(a.getInteger(attr, Defaults.DEFAULT_DELAY));
+
+            } else if (attr == R.styleable.ParticlesView_stepMultiplier) {
+                controller.setStepMultiplier(a.getFloat(attr, Defaults.DEFAULT_STEP_MULTIPLIER));
+
+            } else if (attr == R.styleable.ParticlesView_simulationRate) {
+                controller.setSimulationRate(a.getInteger(attr, Defaults.DEFAULT_SIMULATION_RATE));
+
+            } else if (attr == R.styleable.ParticlesView_backgroundSimulationEnabled) {
+                controller.setBackgroundSimulationEnabled(a.getBoolean(attr,
+                        Defaults.DEFAULT_BACKGROUND_SIMULATION_ENABLED));
+
+            } else if (attr == R.styleable.ParticlesView_parallelism) {
+                controller.setParallelism(a.getInteger(attr, Defaults.DEFAULT_PARALLELISM));
+
+            } else if (attr == R.styleable.ParticlesView_neighborListSkin) {
+                controller.setNeighborListSkin(a.getDimension(attr,
+                        Defaults.DEFAULT_NEIGHBOR_LIST_SKIN));
+
+            } else if (attr == R.styleable.ParticlesView_pairFinder) {
+                controller.setPairFinder(a.getInt(attr, Defaults.DEFAULT_PAIR_FINDER));
+
+            } else if (attr == R.styleable.ParticlesView_adaptiveQualityEnabled) {
+                controller.setAdaptiveQualityEnabled(a.getBoolean(attr,
+                        Defaults.DEFAULT_ADAPTIVE_QUALITY_ENABLED));
+
+            } else if (attr == R.styleable.ParticlesView_targetFrameBudgetMillis) {
+                controller.setTargetFrameBudget(a.getInteger(attr,
+                        Defaults.DEFAULT_TARGET_FRAME_BUDGET_MILLIS));
+            }
+        }
+        controller.setDotRadiusRange(minDotRadius, maxDotRadius);
+    }
+}